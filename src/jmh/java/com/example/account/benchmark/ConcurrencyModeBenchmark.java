@@ -0,0 +1,91 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import com.example.account.controller.TransactionController;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시성 모드별 잔액 사용 처리량 (REDIS_LOCK 과 OPTIMISTIC 비교)
+ * accounts 가 적을수록 같은 계좌로 요청이 몰린다 (1: 모든 쓰레드가 한 계좌, 1024: 거의 경합 없음)
+ * 내장 redis 와 H2 로 애플리케이션을 띄우고 TransactionController 를 직접 불러서 @AccountLock 까지 거친다
+ * lock 대기 초과/재시도 소진으로 실패한 요청도 처리량에 들어가므로 succeeded/failed 를 같이 본다
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+public class ConcurrencyModeBenchmark {
+    private static final long ACCOUNT_ID_BASE = 1_000_000L;
+
+    @Param({"REDIS_LOCK", "OPTIMISTIC"})
+    public String mode;
+
+    @Param({"1", "8", "1024"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionController transactionController;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long succeeded;
+        public long failed;
+    }
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .properties(
+                        "server.port=0",
+                        "account.concurrency.mode=" + mode,
+                        //조합마다 새 DB 로 시작
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + mode + "-" + accounts,
+                        "spring.jpa.properties.hibernate.show_sql=false")
+                .run();
+        transactionController = context.getBean(TransactionController.class);
+
+        //사용자당 계좌 수 제한을 거치지 않도록 계좌는 직접 넣는다 (잔액은 측정 중에 바닥나지 않을 만큼)
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (int i = 0; i < accounts; i++) {
+            jdbcTemplate.update("insert into account (id, account_number, account_status, balance, version," +
+                            " account_user_id, registered_at) values (?, ?, 'IN_USE', ?, 0, 1, now())",
+                    ACCOUNT_ID_BASE + i, accountNumber(i), Long.MAX_VALUE / 2);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object useBalance(Outcome outcome) {
+        String accountNumber = accountNumber(ThreadLocalRandom.current().nextInt(accounts));
+        try {
+            Object response = transactionController.useBalance(
+                    new UseBalance.Request(1L, accountNumber, 10L)).join();
+            outcome.succeeded++;
+            return response;
+        } catch (AccountException | CompletionException e) {
+            outcome.failed++;
+            return e;
+        }
+    }
+
+    private static String accountNumber(int index) {
+        return String.format("9%09d", index);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.account.benchmark;
+
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.service.SnowflakeTransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 id 발급 비용: 예전 방식(UUID 문자열)과 SnowflakeTransactionIdGenerator 비교
+ * 응답에 쓰는 13자리 문자열(nextId)과 DB 에 저장하는 숫자로 되돌리는 비용(parse)을 나눠서 본다
+ * 쓰레드 수는 -t 로 바꿔서 경합을 볼 수 있다 (UUID 는 SecureRandom, Snowflake 는 CAS 에서 경합)
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIdBenchmark {
+    private SnowflakeTransactionIdGenerator generator;
+    private String issued;
+
+    @Setup
+    public void setUp() {
+        //노드 번호를 정해두면 redis 임대 없이 발급한다
+        generator = new SnowflakeTransactionIdGenerator(null);
+        Field nodeId = ReflectionUtils.findField(SnowflakeTransactionIdGenerator.class, "nodeId");
+        ReflectionUtils.makeAccessible(nodeId);
+        ReflectionUtils.setField(nodeId, generator, 1L);
+        issued = generator.nextId();
+    }
+
+    @Benchmark
+    public String uuid() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public Long parse() {
+        return TransactionIdConverter.parse(issued);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.account.aop;
 
+import com.example.account.type.LockWaitType;
+
 import java.lang.annotation.*;
 
 @Target(ElementType.METHOD)
@@ -7,6 +9,15 @@ import java.lang.annotation.*;
 @Documented
 @Inherited
 public @interface AccountLock {
-    //해당 시간만큼 기다림
-    long tryLockTime() default 5000L;
+    //해당 시간만큼 기다림 (ms)
+    long tryLockTime() default 1000L;
+
+    //lock 이 자동해제되는 시간 (ms), -1 이면 redisson watchdog 이 살아있는 동안 계속 갱신해준다
+    long leaseTime() default 15000L;
+
+    //true 면 먼저 기다린 요청부터 lock 을 가져감
+    boolean fair() default false;
+
+    //lock 을 기다리는 방식 (fair lock 은 항상 pub/sub 으로 기다림)
+    LockWaitType waitType() default LockWaitType.PUB_SUB;
 }
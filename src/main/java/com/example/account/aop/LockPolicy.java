@@ -0,0 +1,42 @@
+package com.example.account.aop;
+
+import com.example.account.type.LockWaitType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * @AccountLock 에 적힌 값을 메소드 단위로 한 번만 해석해둔 lock 정책
+ * */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LockPolicy {
+    public static final LockPolicy DEFAULT =
+            new LockPolicy(1000L, 15000L, false, LockWaitType.PUB_SUB);
+
+    private final long waitTime;   //ms
+    private final long leaseTime;  //ms, -1 이면 watchdog
+    private final boolean fair;
+    private final LockWaitType waitType;
+
+    public static LockPolicy from(AccountLock accountLock) {
+        if (accountLock.tryLockTime() < 0) {
+            throw new IllegalArgumentException("tryLockTime must not be negative");
+        }
+        if (accountLock.leaseTime() <= 0 && accountLock.leaseTime() != -1L) {
+            throw new IllegalArgumentException("leaseTime must be positive or -1");
+        }
+
+        return new LockPolicy(
+                accountLock.tryLockTime(),
+                accountLock.leaseTime(),
+                accountLock.fair(),
+                accountLock.waitType()
+        );
+    }
+
+    public boolean isWatchdog() {
+        return leaseTime == -1L;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.account.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+    @Value("${account.async.core-pool-size:16}")
+    private int corePoolSize;
+
+    @Value("${account.async.max-pool-size:64}")
+    private int maxPoolSize;
+
+    @Value("${account.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${account.async.virtual-concurrency-limit:10000}")
+    private int virtualConcurrencyLimit;
+
+    //lock 을 잡은 뒤의 잔액 처리(JPA)를 servlet 쓰레드 대신 여기서 실행
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor transactionExecutor(){
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transaction-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+
+        return executor;
+    }
+
+    //spring.threads.virtual.enabled=true 이면 작업마다 가상 쓰레드를 만든다
+    //풀 크기 대신 동시 실행 수만 제한 (DB 커넥션 풀이 실제 상한이 된다)
+    @Bean("transactionExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualTransactionExecutor(){
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("transaction-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(virtualConcurrencyLimit);
+        executor.setTaskTerminationTimeout(10_000L);
+
+        return executor;
+    }
+}
@@ -4,12 +4,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import redis.embedded.RedisServer;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 @Configuration
 public class LocalRedisConfig {
-    @Value("${spring.redis.port}") //redis 를 띄워줄 port 를 이 경로에 넣어줄 것임
+    @Value("${spring.data.redis.port}") //redis 를 띄워줄 port 를 이 경로에 넣어줄 것임
     private int redisPort;
 
     private RedisServer redisServer;
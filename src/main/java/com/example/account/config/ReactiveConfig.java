@@ -0,0 +1,31 @@
+package com.example.account.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.RedissonReactiveClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * reactive profile 에서만 쓰는 bean
+ * */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    //RedisRepositoryConfig 의 redissonClient 와 같은 연결을 쓰는 reactive API
+    @Bean
+    public RedissonReactiveClient redissonReactiveClient(RedissonClient redissonClient){
+        return redissonClient.reactive();
+    }
+
+    //R2dbcTransactionManager 는 bean 으로 등록하지 않고 operator 안에서만 쓴다
+    //(등록하면 JPA 의 transactionManager 와 겹쳐서 @Transactional 이 어느 쪽을 쓸지 고를 수 없다)
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(ConnectionFactory connectionFactory){
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+}
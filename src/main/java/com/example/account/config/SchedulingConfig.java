@@ -0,0 +1,9 @@
+package com.example.account.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling  //@Scheduled 가 붙은 메소드들을 주기적으로 실행
+public class SchedulingConfig {
+}
@@ -8,13 +8,14 @@ import com.example.account.dto.DeleteAccount;
 import com.example.account.service.AccountService;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.*;
 
-import javax.validation.Valid;
+import jakarta.validation.Valid;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
+@Profile("!reactive") //reactive profile 에서는 ReactiveAccountController 가 같은 주소를 처리
 @RequiredArgsConstructor
 public class AccountController { //외부에선 컨트롤러로만, 컨트롤러는 서비스, 서비스는 레파지토리로 접속하는 순차적인 계층화된 구조
     private final AccountService accountService;
@@ -54,12 +55,7 @@ public class AccountController { //외부에선 컨트롤러로만, 컨트롤러
     public List<AccountInfo> getAccountsByUserId(
             @RequestParam("user_id") Long userId
     ){
-      return accountService.getAccountByUserId(userId)
-              .stream().map(accountDto ->
-                      AccountInfo.builder()
-                      .accountNumber(accountDto.getAccountNumber())
-                      .balance(accountDto.getBalance()).build())
-              .collect(Collectors.toList());
+      return accountService.getAccountByUserId(userId);
 
         }
 
@@ -0,0 +1,54 @@
+package com.example.account.controller;
+
+import com.example.account.dto.CacheMetricsResponse;
+import com.example.account.dto.FailedTransactionMetricsResponse;
+import com.example.account.dto.LockMetricsResponse;
+import com.example.account.service.AccountBalanceCache;
+import com.example.account.service.AccountUserCache;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.LockMetrics;
+import com.example.account.service.TransactionCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 운영 지표 조회 컨트롤러
+ * 1. 계좌 lock 경쟁 지표
+ * 2. 캐시 적중률
+ * 3. 실패 거래 기록 큐
+ * */
+@RestController
+@RequiredArgsConstructor
+public class MetricsController {
+    private final LockMetrics lockMetrics;
+    private final AccountUserCache accountUserCache;
+    private final TransactionCache transactionCache;
+    private final AccountBalanceCache accountBalanceCache;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+
+    @GetMapping("/metrics/lock")
+    public LockMetricsResponse getLockMetrics(
+            @RequestParam(value = "top", defaultValue = "10") int top
+    ){
+        return lockMetrics.snapshot(Math.max(0, top));
+    }
+
+    @GetMapping("/metrics/cache")
+    public List<CacheMetricsResponse> getCacheMetrics(){
+        return Arrays.asList(
+                accountUserCache.stats(),
+                transactionCache.stats(),
+                accountBalanceCache.stats()
+        );
+    }
+
+    @GetMapping("/metrics/failed-transactions")
+    public FailedTransactionMetricsResponse getFailedTransactionMetrics(){
+        return failedTransactionRecorder.stats();
+    }
+}
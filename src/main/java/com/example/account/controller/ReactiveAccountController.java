@@ -0,0 +1,54 @@
+package com.example.account.controller;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.CreateAccount;
+import com.example.account.dto.DeleteAccount;
+import com.example.account.service.ReactiveAccountService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+/**
+ * reactive 배포(profile: reactive)용 계좌 컨트롤러, AccountController 와 같은 주소/요청/응답
+ * */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveAccountController {
+    private final ReactiveAccountService accountService;
+
+    @PostMapping("/account")
+    public Mono<CreateAccount.Response> createAccount(
+            @RequestBody @Valid CreateAccount.Request request
+    ){
+        return accountService.createAccount(request.getUserId(), request.getInitialBalance())
+                .map(CreateAccount.Response::from);
+    }
+
+    @DeleteMapping("/account")
+    public Mono<DeleteAccount.Response> deleteAccount(
+            @RequestBody @Valid DeleteAccount.Request request
+    ){
+        return accountService.deleteAccount(request.getUserId(), request.getAccountNumber())
+                .map(DeleteAccount.Response::from);
+    }
+
+    //게이트웨이가 많이 부르는 잔액 조회: near-cache 에 없을 때만 r2dbc 로 읽는다
+    @GetMapping("/account")
+    public Mono<List<AccountInfo>> getAccountsByUserId(
+            @RequestParam("user_id") Long userId
+    ){
+        return accountService.getAccountByUserId(userId);
+    }
+
+    @GetMapping("/account/{id}")
+    public Mono<Account> getAccount(
+            @PathVariable Long id){
+        return accountService.getAccount(id);
+    }
+}
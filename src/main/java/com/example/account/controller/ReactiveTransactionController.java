@@ -0,0 +1,98 @@
+package com.example.account.controller;
+
+import com.example.account.aop.AccountLock;
+import com.example.account.aop.LockPolicy;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.ReactiveLockService;
+import com.example.account.service.ReactiveTransactionService;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+
+/**
+ * reactive 배포(profile: reactive)용 잔액 컨트롤러, TransactionController 와 같은 주소/요청/응답
+ * 1. 잔액 사용
+ * 2. 잔액 사용 취소
+ * 3. 거래 확인
+ *
+ * 계좌 lock 은 ReactiveLockService 로 잡는다 (lock 정책은 TransactionController 의 @AccountLock 에서 읽어온다)
+ * 거래 내역/내보내기는 servlet 배포에서만 제공
+ * */
+@Slf4j
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveTransactionController {
+    private static final LockPolicy USE_LOCK_POLICY =
+            lockPolicyOf("useBalance", UseBalance.Request.class);
+    private static final LockPolicy CANCEL_LOCK_POLICY =
+            lockPolicyOf("cancelBalance", CancelBalance.Request.class);
+
+    private final ReactiveTransactionService transactionService;
+    private final ReactiveLockService lockService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+
+    @PostMapping("/transaction/use")
+    public Mono<UseBalance.Response> useBalance(
+            @Valid @RequestBody UseBalance.Request request
+    ) {
+        return lockService.executeWithLock(request.getAccountNumber(), USE_LOCK_POLICY,
+                        transactionService.useBalance(request.getUserId(),
+                                        request.getAccountNumber(), request.getAmount())
+                                .doOnError(AccountException.class, e -> {
+                                    log.error("Failed to use balance!!");
+                                    //실패 기록은 큐에 넣기만 하므로 event loop 를 막지 않는다
+                                    failedTransactionRecorder.record(
+                                            request.getAccountNumber(),
+                                            TransactionType.USE,
+                                            request.getAmount()
+                                    );
+                                }))
+                .map(UseBalance.Response::from);
+    }
+
+    @PostMapping("/transaction/cancel")
+    public Mono<CancelBalance.Response> cancelBalance(
+            @Valid @RequestBody CancelBalance.Request request
+    ) {
+        return lockService.executeWithLock(request.getAccountNumber(), CANCEL_LOCK_POLICY,
+                        transactionService.cancelBalance(request.getTransactionId(),
+                                        request.getAccountNumber(), request.getAmount())
+                                .doOnError(AccountException.class, e -> {
+                                    log.error("Failed to cancel balance!!");
+                                    failedTransactionRecorder.record(
+                                            request.getAccountNumber(),
+                                            TransactionType.CANCEL,
+                                            request.getAmount()
+                                    );
+                                }))
+                .map(CancelBalance.Response::from);
+    }
+
+    @GetMapping("/transaction/{transactionId}")
+    public Mono<QueryTransactionResponse> queryTransaction(
+            @PathVariable String transactionId){
+        return transactionService.queryTransaction(transactionId)
+                .map(QueryTransactionResponse::from);
+    }
+
+    //servlet 배포와 같은 정책을 쓰도록 TransactionController 에 붙은 @AccountLock 을 그대로 해석
+    private static LockPolicy lockPolicyOf(String methodName, Class<?> requestType) {
+        try {
+            return LockPolicy.from(TransactionController.class
+                    .getMethod(methodName, requestType)
+                    .getAnnotation(AccountLock.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("no @AccountLock method: " + methodName, e);
+        }
+    }
+}
@@ -4,45 +4,68 @@ import com.example.account.aop.AccountLock;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.QueryTransactionResponse;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.TransactionExportService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ExportFormat;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
-import javax.validation.Valid;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 잔액 관련 컨트롤러
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 계좌별 거래 내역 (cursor 페이지)
+ * 5. 거래 내역 내보내기 (NDJSON/CSV, gzip)
+ *
+ * 잔액 사용/취소는 CompletableFuture 를 돌려주므로 lock 을 기다리는 동안 servlet 쓰레드를 붙잡지 않는다
+ * (lock 취득 후의 처리는 LockAopAspect 가 transactionExecutor 에서 실행)
  * */
 
 @Slf4j
 @RestController
+@Profile("!reactive") //reactive profile 에서는 ReactiveTransactionController 가 같은 주소를 처리
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
 
+    // 사용은 빈번하므로 짧게 기다리고, 노드가 죽었을 때 계좌가 오래 묶이지 않도록 lease 도 짧게
     @PostMapping("/transaction/use")
-    @AccountLock
-    public UseBalance.Response useBalance(
+    @AccountLock(tryLockTime = 1000L, leaseTime = 5000L)
+    public CompletableFuture<UseBalance.Response> useBalance(
             @Valid @RequestBody UseBalance.Request request
-    ) throws InterruptedException {
+    ) {
 
         try{
-            Thread.sleep(3000L);  //3초
-            return UseBalance.Response.from(
+            return CompletableFuture.completedFuture(UseBalance.Response.from(
                     transactionService.useBalance(request.getUserId(),
                         request.getAccountNumber(), request.getAmount())
-            );
+            ));
         }catch (AccountException e){
             log.error("Failed to use balance!!");
 
-            transactionService.saveFailedUseTransaction(
+            //실패 기록은 큐에 넣기만 하고 바로 응답 (저장은 FailedTransactionRecorder 가 모아서)
+            failedTransactionRecorder.record(
                     request.getAccountNumber(),
+                    TransactionType.USE,
                     request.getAmount()
             );
 
@@ -51,22 +74,24 @@ public class TransactionController {
     }
 
 
+    // 취소는 드물지만 실패하면 재시도 비용이 크므로 조금 더 기다리고, 먼저 온 요청부터 처리
     @PostMapping("/transaction/cancel")
-    @AccountLock
-    public CancelBalance.Response cancelBalance(
+    @AccountLock(tryLockTime = 3000L, leaseTime = 5000L, fair = true)
+    public CompletableFuture<CancelBalance.Response> cancelBalance(
             @Valid @RequestBody CancelBalance.Request request
     ) {
 
         try{
-            return CancelBalance.Response.from(
+            return CompletableFuture.completedFuture(CancelBalance.Response.from(
                     transactionService.cancelBalance(request.getTransactionId(),
                             request.getAccountNumber(), request.getAmount())
-            );
+            ));
         }catch (AccountException e){
             log.error("Failed to use balance!!");
 
-            transactionService.saveFailedCancelTransaction(
+            failedTransactionRecorder.record(
                     request.getAccountNumber(),
+                    TransactionType.CANCEL,
                     request.getAmount()
             );
 
@@ -83,4 +108,39 @@ public class TransactionController {
 
     }
 
+
+    //최신 거래부터 size 건씩, 다음 페이지는 응답의 nextCursor 를 cursor 로 넘긴다
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "type", required = false) TransactionType type,
+            @RequestParam(value = "result", required = false) TransactionResultType result
+    ){
+        return transactionService.getTransactionHistory(accountNumber, cursor, size, type, result);
+    }
+
+
+    //재무팀 일일 덤프용: 결과를 메모리에 모으지 않고 응답으로 바로 흘려보낸다
+    @GetMapping("/transaction/export")
+    public void exportTransactions(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "account_number", required = false) String accountNumber,
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(value = "gzip", defaultValue = "true") boolean gzip,
+            HttpServletResponse response
+    ) throws IOException {
+        //응답 헤더를 쓰기 전에 검증해야 에러 응답을 돌려줄 수 있다
+        transactionExportService.validateRange(from, to);
+
+        String fileName = "transactions-" + from.toLocalDate() + "." + format.getExtension()
+                + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        transactionExportService.export(format, from, to, accountNumber, gzip, response.getOutputStream());
+    }
+
 }
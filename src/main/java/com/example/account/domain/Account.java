@@ -4,7 +4,7 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.*;
-import javax.persistence.*;
+import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 
@@ -16,7 +16,16 @@ import java.time.LocalDateTime;
 @Entity //클래스가 데이터베이스 테이블과 매핑되는 엔티티(Entity)임을 나타냄 (일종의 설정클래스, 자바 객체 X, 하나의 테이블을 만든 것)
 public class Account extends BaseEntity { //Account라는 테이블을 만든 것임
 
-    @ManyToOne //  1:N관계
+    @Id  //pk 지정 어노테이션
+    // 엔티티마다 자기 sequence 를 쓰고, 한 번에 50개씩 예약해서 insert 마다 sequence 를 호출하지 않는다
+    // sequence 의 increment 는 allocationSize 와 같아야 함 (V5 마이그레이션), 예약 방식은 application.yml 의 pooled-lo
+    // (BaseEntity 에 generator 하나를 두면 Hibernate 6 에서는 모든 엔티티가 같은 sequence 를 찾는다)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
+    private Long id;
+
+    // 소유주가 필요한 경우에만 읽도록 LAZY (필요한 쿼리는 repository 의 @EntityGraph 로 함께 가져온다)
+    @ManyToOne(fetch = FetchType.LAZY) //  1:N관계
     private AccountUser accountUser;  // h2 시스템에 있는 user 테이블이랑 충돌될 수 있기때문에 accountUser로 지음
     private String accountNumber;
 
@@ -30,6 +39,10 @@ public class Account extends BaseEntity { //Account라는 테이블을 만든 
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    // OPTIMISTIC 모드에서 동시에 같은 계좌를 수정하면 먼저 커밋한 쪽만 성공하도록 하는 버전
+    @Version
+    private Long version;
+
 
     // 밸런스를 변경하는 로직은 엔티티에 안에 넣어주는 것도 일종의 안전한 방법
     // 중요한 데이터를 변경하는 로직은 객체 안에서 직접 수행할 수 있도록
@@ -3,7 +3,12 @@ package com.example.account.domain;
 import lombok.*;
 
 
-import javax.persistence.Entity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 
 
 @Getter
@@ -14,6 +19,17 @@ import javax.persistence.Entity;
 @Entity  //클래스가 데이터베이스 테이블과 매핑되는 엔티티(Entity)임을 나타냄 (일종의 설정클래스, 자바 객체 X, 하나의 테이블을 만든 것) , 해당 클래스는 pk를 가지고있어야함
 public class AccountUser extends BaseEntity {
 
+    @Id
+    // Account 와 같은 방식 (자기 sequence, 50개 단위)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_user_seq")
+    @SequenceGenerator(name = "account_user_seq", sequenceName = "account_user_seq", allocationSize = 50)
+    private Long id;
+
     private String name;
 
+    // 사용 중(IN_USE)인 계좌 수, 계좌 생성/해지 때 조건부 UPDATE 로만 변경한다
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer accountCount = 0;
+
 }
@@ -5,7 +5,7 @@ import com.example.account.type.TransactionType;
 
 import lombok.*;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Getter
@@ -16,17 +16,27 @@ import java.time.LocalDateTime;
 @Entity
 public class Transaction extends BaseEntity {
 
+    @Id
+    // Account 와 같은 방식 (자기 sequence, 50개 단위)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
+    private Long id;
+
     @Enumerated(EnumType.STRING)
     private TransactionType transactionType;
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Account account;
     private  Long amount;
     private Long balanceSnapshot;
 
+    // DB 에는 BIGINT 로 저장 (TransactionIdConverter)
+    @Convert(converter = TransactionIdConverter.class)
     private String transactionId;
+    // V3 이전에 발급된 UUID(32자리) 거래 id, 예전 id 로 들어오는 조회/취소를 찾는 데만 사용
+    private String legacyTransactionId;
     private LocalDateTime transactedAt;
 
 
@@ -0,0 +1,63 @@
+package com.example.account.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * 거래 id 는 DB 에 BIGINT 로 저장하고, 밖으로는 13자리 Crockford base32 문자열로 보여준다
+ * (자릿수가 고정이라 문자열로 정렬해도 발급 순서와 같다)
+ * */
+@Converter
+public class TransactionIdConverter implements AttributeConverter<String, Long> {
+    private static final int LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        java.util.Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = i;
+        }
+    }
+
+    public static String format(long id) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 형식이 맞지 않으면 null (조회 조건으로 쓰이면 아무 거래와도 일치하지 않는다)
+     * */
+    public static Long parse(String transactionId) {
+        if (transactionId == null || transactionId.length() != LENGTH) {
+            return null;
+        }
+
+        long id = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = transactionId.charAt(i);
+            int value = c < 128 ? DECODE[c] : -1;
+            // 첫 글자는 long 의 부호 비트까지만 쓸 수 있다 (양수만 발급)
+            if (value < 0 || (i == 0 && value > 7)) {
+                return null;
+            }
+            id = (id << 5) | value;
+        }
+        return id;
+    }
+
+    @Override
+    public Long convertToDatabaseColumn(String transactionId) {
+        return parse(transactionId);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long id) {
+        return id == null ? null : format(id);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.account.dto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.*;
+
+/**
+ * {"name":"accountUser","size":3,"hitCount":120,"missCount":3,"hitRate":0.97,"evictionCount":0}
+ * */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheMetricsResponse {
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+
+    public static CacheMetricsResponse from(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+
+        return CacheMetricsResponse.builder()
+                .name(name)
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
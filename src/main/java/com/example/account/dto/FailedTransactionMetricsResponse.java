@@ -0,0 +1,20 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+/**
+ * {"queued":0,"recorded":1520,"aggregated":48000,"dropped":12}
+ * queued: 저장 대기 중, recorded: 저장됨, aggregated: 큐가 가득 차서 카운터로만 센 실패,
+ * dropped: 계좌가 없거나 저장에 실패해서 버린 실패
+ * */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FailedTransactionMetricsResponse {
+    private int queued;
+    private long recorded;
+    private long aggregated;
+    private long dropped;
+}
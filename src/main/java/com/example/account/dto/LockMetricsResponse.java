@@ -0,0 +1,56 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {
+ * "acquired":120,
+ * "timeouts":3,
+ * "errors":0,
+ * "unlockFailures":0,
+ * "acquireLatency":{"count":123,"meanMillis":2.4,"maxMillis":998,"p50Millis":1,...},
+ * "holdTime":{...},
+ * "hotKeys":[{"key":"ACLK:1000000000","attempts":80}]
+ * }
+ * */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LockMetricsResponse {
+    private long acquired;
+    private long timeouts;
+    private long errors;
+    private long unlockFailures;
+    private Histogram acquireLatency;
+    private Histogram holdTime;
+    private List<HotKey> hotKeys;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Histogram {
+        private long count;
+        private double meanMillis;
+        private long maxMillis;
+        private long p50Millis;
+        private long p90Millis;
+        private long p99Millis;
+        private Map<String, Long> buckets; //구간 상한(ms) -> 건수
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HotKey {
+        private String key;
+        private long attempts;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * {
+ * "accountNumber":"1000000000",
+ * "transactions":[{"transactionId":"...","transactionType":"USE",...}],
+ * "nextCursor":"MjAyNC0wMS0wMVQxMDowMDo..."   (마지막 페이지면 null)
+ * }
+ * */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistory {
+    private String accountNumber;
+    private List<TransactionHistoryItem> transactions;
+    private String nextCursor;
+}
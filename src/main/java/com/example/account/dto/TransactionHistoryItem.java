@@ -0,0 +1,25 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//거래 내역 한 건 (repository 에서 projection 으로 바로 만들어짐)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryItem {
+    @JsonIgnore  //다음 페이지 cursor 를 만들 때만 사용
+    private Long id;
+    private String transactionId;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResult;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+}
@@ -4,9 +4,11 @@ import com.example.account.dto.ErrorResponse;
 import com.example.account.type.ErrorCode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 @Slf4j
 @RestControllerAdvice
@@ -34,6 +36,20 @@ public class GlobalExceptionHandler {
 
 
 
+    //reactive profile(WebFlux)에서 @Valid 검증에 실패한 경우
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ErrorResponse handlerWebExchangeBindException(WebExchangeBindException e){
+        log.error("WebExchangeBindException is occurred.",e);
+
+        return new ErrorResponse(
+                ErrorCode.INVALID_REQUEST,
+                ErrorCode.INVALID_REQUEST.getDescription()
+        );
+    }
+
+
+
+
     //유니크 key 가 있는데 키를 중복해서 저장하려고하거나 할때
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ErrorResponse handlerDataIntegrityViolationException(DataIntegrityViolationException e){
@@ -47,6 +63,19 @@ public class GlobalExceptionHandler {
 
 
 
+    //PESSIMISTIC 모드에서 계좌 row lock 을 기다리다 시간이 초과된 경우
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ErrorResponse handlerPessimisticLockingFailureException(PessimisticLockingFailureException e){
+        log.error("PessimisticLockingFailureException is occurred.",e);
+
+        return new ErrorResponse(
+                ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ErrorCode.ACCOUNT_TRANSACTION_LOCK.getDescription()
+        );
+    }
+
+
+
     @ExceptionHandler(Exception.class)
     public ErrorResponse handlerException(Exception e){
         log.error("Exception is occurred.",e);
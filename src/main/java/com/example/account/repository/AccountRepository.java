@@ -1,26 +1,74 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Account;
-import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountInfo;
+import com.example.account.type.AccountStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository //Account 라는 테이블에 접속하기 위한 인터페이스
 public interface AccountRepository extends JpaRepository<Account,Long> {
 
-    //Id 기준으로 내림차순 정렬한 값에서 맨첫번째값을 가져올 것임
     //이름을 형식에 맞춰 쓰기만하면 자동으로 쿼리를 생성해준다고 함
-    //근데 아직 값이 없는 상태일 수도 있어서(계좌가 아직 하나도 없을 경우) 이렇게 만들었다고? 03_계좌 생성 API-002 20:00
-    Optional<Account> findFirstByOrderByIdDesc(); //인터페이스라 구현부는 X
     //이미 JpaRepository<>클래스 내에 findBy()...등의 메소드가 있고 우리 편의대로 만든 메소드를 추가한 것임
+    Optional<Account> findByAccountNumber(String AccountNumber);
 
+    //실패 기록 배치 저장 시 배치 안의 계좌를 한 번에 조회
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
 
-    Integer countByAccountUser(AccountUser accountUser);
+    //계좌번호 발급기가 저장소(redis/DB 시퀀스)가 이미 쓰인 번호보다 뒤처졌는지 확인할 때 사용 (번호는 모두 10자리)
+    @Query("select max(a.accountNumber) from Account a")
+    Optional<String> findMaxAccountNumber();
 
-    Optional<Account> findByAccountNumber(String AccountNumber);
+    @Query("select a.id from Account a where a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    //PESSIMISTIC 모드용: 트랜잭션이 끝날 때까지 계좌 row 를 잠근다 (SELECT ... FOR UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
+    //GET /account 용: 엔티티를 만들지 않고 필요한 두 컬럼만 바로 AccountInfo 로 받는다
+    @Query("select new com.example.account.dto.AccountInfo(a.accountNumber, a.balance)" +
+            " from Account a where a.accountUser.id = :userId order by a.id")
+    List<AccountInfo> findAccountInfosByUserId(@Param("userId") Long userId);
+
+    //계좌 엔티티를 그대로 응답하는 조회용: 소유주까지 한 번의 join 으로 가져온다
+    @EntityGraph(attributePaths = "accountUser")
+    Optional<Account> findWithAccountUserById(Long id);
+
+    //ATOMIC 모드용: 소유주/상태/잔액 조건을 모두 만족할 때만 차감, 0 이 반환되면 실패
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount," +
+            " a.version = coalesce(a.version, 0) + 1, a.updatedAt = :now" +
+            " where a.accountNumber = :accountNumber and a.accountUser.id = :userId" +
+            " and a.accountStatus = :status and a.balance >= :amount")
+    int debit(@Param("accountNumber") String accountNumber,
+              @Param("userId") Long userId,
+              @Param("amount") Long amount,
+              @Param("status") AccountStatus status,
+              @Param("now") LocalDateTime now);
 
-    List<Account> findByAccountUser(AccountUser accountUser);
+    //ATOMIC 모드용: 취소 금액만큼 더해준다
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount," +
+            " a.version = coalesce(a.version, 0) + 1, a.updatedAt = :now" +
+            " where a.id = :accountId")
+    int credit(@Param("accountId") Long accountId,
+               @Param("amount") Long amount,
+               @Param("now") LocalDateTime now);
 }
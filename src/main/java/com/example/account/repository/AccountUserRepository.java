@@ -1,10 +1,34 @@
 package com.example.account.repository;
 
 import com.example.account.domain.AccountUser;
+import com.example.account.type.AccountStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository //AccountUser 라는 테이블에 접속하기 위한 인터페이스
 public interface AccountUserRepository extends JpaRepository<AccountUser,Long> {
+
+    //최대 개수 미만일 때만 1 증가, 0 이 반환되면 한도 초과 (UPDATE 가 row 를 잠그므로 동시 생성에도 한도를 넘지 않음)
+    @Modifying(flushAutomatically = true)
+    @Query("update AccountUser u set u.accountCount = u.accountCount + 1" +
+            " where u.id = :userId and u.accountCount < :maxCount")
+    int incrementAccountCount(@Param("userId") Long userId,
+                              @Param("maxCount") int maxCount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update AccountUser u set u.accountCount = u.accountCount - 1" +
+            " where u.id = :userId and u.accountCount > 0")
+    int decrementAccountCount(@Param("userId") Long userId);
+
+    //카운터가 실제 계좌 수와 어긋난 사용자만 다시 맞춰준다
+    @Modifying
+    @Query("update AccountUser u set u.accountCount =" +
+            " (select count(a) from Account a where a.accountUser = u and a.accountStatus = :status)" +
+            " where u.accountCount <>" +
+            " (select count(a) from Account a where a.accountUser = u and a.accountStatus = :status)")
+    int reconcileAccountCounts(@Param("status") AccountStatus status);
 }
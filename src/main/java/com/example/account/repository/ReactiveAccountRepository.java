@@ -0,0 +1,141 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountInfo;
+import com.example.account.type.AccountStatus;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * reactive 배포용 account 테이블 접근
+ * 읽은 row 는 Account 엔티티 객체에 담아서 돌려준다 (영속성 컨텍스트 밖의 값 객체로만 쓰이고, 변경은 모두 UPDATE 문으로 한다)
+ * */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveAccountRepository {
+    private static final String ACCOUNT_COLUMNS = "a.id, a.created_at, a.updated_at, a.account_number," +
+            " a.account_status, a.balance, a.registered_at, a.un_registered_at, a.version, a.account_user_id";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Account> findByAccountNumber(String accountNumber) {
+        return databaseClient.sql("select " + ACCOUNT_COLUMNS +
+                        " from account a where a.account_number = :accountNumber")
+                .bind("accountNumber", accountNumber)
+                .map(ReactiveAccountRepository::toAccount)
+                .one();
+    }
+
+    //GET /account/{id} 용: 소유주까지 한 번의 join 으로 가져온다
+    public Mono<Account> findWithAccountUserById(Long id) {
+        return databaseClient.sql("select " + ACCOUNT_COLUMNS +
+                        ", u.created_at as user_created_at, u.updated_at as user_updated_at," +
+                        " u.name as user_name, u.account_count as user_account_count" +
+                        " from account a join account_user u on u.id = a.account_user_id where a.id = :id")
+                .bind("id", id)
+                .map(row -> {
+                    Account account = toAccount(row);
+                    AccountUser accountUser = account.getAccountUser();
+                    accountUser.setCreatedAt(row.get("user_created_at", LocalDateTime.class));
+                    accountUser.setUpdatedAt(row.get("user_updated_at", LocalDateTime.class));
+                    accountUser.setName(row.get("user_name", String.class));
+                    accountUser.setAccountCount(row.get("user_account_count", Integer.class));
+                    return account;
+                })
+                .one();
+    }
+
+    //GET /account 용: 필요한 두 컬럼만 바로 AccountInfo 로 받는다
+    public Flux<AccountInfo> findAccountInfosByUserId(Long userId) {
+        return databaseClient.sql("select account_number, balance from account" +
+                        " where account_user_id = :userId order by id")
+                .bind("userId", userId)
+                .map(row -> new AccountInfo(
+                        row.get("account_number", String.class),
+                        row.get("balance", Long.class)))
+                .all();
+    }
+
+    /**
+     * id 는 sequence 에서 바로 받는다
+     * (JPA 는 받은 값부터 50개를 쓰는 pooled-lo 이므로, 여기서 받은 값 하나만 쓰면 서로 겹치지 않는다)
+     * */
+    public Mono<Long> insert(Account account, LocalDateTime now) {
+        return databaseClient.sql("insert into account (id, created_at, updated_at, account_number," +
+                        " account_status, balance, registered_at, version, account_user_id)" +
+                        " values (next value for account_seq, :now, :now, :accountNumber," +
+                        " :accountStatus, :balance, :registeredAt, 0, :userId)")
+                .bind("now", now)
+                .bind("accountNumber", account.getAccountNumber())
+                .bind("accountStatus", account.getAccountStatus().name())
+                .bind("balance", account.getBalance())
+                .bind("registeredAt", account.getRegisteredAt())
+                .bind("userId", account.getAccountUser().getId())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    //잔액이 충분할 때만 차감, 0 이 반환되면 실패
+    public Mono<Long> debit(Long accountId, Long amount, LocalDateTime now) {
+        return databaseClient.sql("update account set balance = balance - :amount," +
+                        " version = coalesce(version, 0) + 1, updated_at = :now" +
+                        " where id = :accountId and balance >= :amount")
+                .bind("amount", amount)
+                .bind("now", now)
+                .bind("accountId", accountId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> credit(Long accountId, Long amount, LocalDateTime now) {
+        return databaseClient.sql("update account set balance = balance + :amount," +
+                        " version = coalesce(version, 0) + 1, updated_at = :now" +
+                        " where id = :accountId")
+                .bind("amount", amount)
+                .bind("now", now)
+                .bind("accountId", accountId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    //사용 중인 계좌만 해지, 0 이 반환되면 그 사이에 이미 해지된 것
+    public Mono<Long> unregister(Long accountId, LocalDateTime now) {
+        return databaseClient.sql("update account set account_status = :unregistered," +
+                        " un_registered_at = :now, version = coalesce(version, 0) + 1, updated_at = :now" +
+                        " where id = :accountId and account_status = :inUse")
+                .bind("unregistered", AccountStatus.UNREGISTERED.name())
+                .bind("now", now)
+                .bind("accountId", accountId)
+                .bind("inUse", AccountStatus.IN_USE.name())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static Account toAccount(Readable row) {
+        AccountUser accountUser = new AccountUser();
+        accountUser.setId(row.get("account_user_id", Long.class));
+
+        Account account = Account.builder()
+                .accountUser(accountUser)
+                .accountNumber(row.get("account_number", String.class))
+                .accountStatus(AccountStatus.valueOf(row.get("account_status", String.class)))
+                .balance(row.get("balance", Long.class))
+                .registeredAt(row.get("registered_at", LocalDateTime.class))
+                .unRegisteredAt(row.get("un_registered_at", LocalDateTime.class))
+                .version(row.get("version", Long.class))
+                .build();
+        account.setId(row.get("id", Long.class));
+        account.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        account.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return account;
+    }
+}
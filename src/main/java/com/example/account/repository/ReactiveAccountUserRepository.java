@@ -0,0 +1,42 @@
+package com.example.account.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * reactive 배포용 account_user 테이블 접근 (AccountUserRepository 와 같은 조건부 UPDATE 를 r2dbc 로 실행)
+ * */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveAccountUserRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<Boolean> existsById(Long userId) {
+        return databaseClient.sql("select count(*) from account_user where id = :userId")
+                .bind("userId", userId)
+                .map(row -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    //최대 개수 미만일 때만 1 증가, 0 이 반환되면 한도 초과
+    public Mono<Long> incrementAccountCount(Long userId, int maxCount) {
+        return databaseClient.sql("update account_user set account_count = account_count + 1" +
+                        " where id = :userId and account_count < :maxCount")
+                .bind("userId", userId)
+                .bind("maxCount", maxCount)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> decrementAccountCount(Long userId) {
+        return databaseClient.sql("update account_user set account_count = account_count - 1" +
+                        " where id = :userId and account_count > 0")
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+}
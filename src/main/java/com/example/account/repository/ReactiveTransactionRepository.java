@@ -0,0 +1,65 @@
+package com.example.account.repository;
+
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * reactive 배포용 transaction 테이블 접근
+ * 거래 id 는 TransactionIdConverter 와 같은 규칙으로 BIGINT 와 13자리 문자열 사이를 변환한다
+ * */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveTransactionRepository {
+    private final DatabaseClient databaseClient;
+
+    //13자리 형식이 아니면 V3 이전의 UUID 거래 id 로 보고 legacy 컬럼에서 찾는다 (TransactionRepository 와 같음)
+    public Mono<TransactionDto> findByTransactionId(String transactionId) {
+        Long id = TransactionIdConverter.parse(transactionId);
+
+        return databaseClient.sql("select a.account_number, t.transaction_type, t.transaction_result_type," +
+                        " t.amount, t.balance_snapshot, t.transaction_id, t.transacted_at" +
+                        " from transaction t join account a on a.id = t.account_id" +
+                        (id != null
+                                ? " where t.transaction_id = :transactionId"
+                                : " where t.legacy_transaction_id = :transactionId"))
+                .bind("transactionId", id != null ? id : transactionId)
+                .map(row -> TransactionDto.builder()
+                        .accountNumber(row.get("account_number", String.class))
+                        .transactionType(TransactionType.valueOf(row.get("transaction_type", String.class)))
+                        .transactionResultType(TransactionResultType.valueOf(
+                                row.get("transaction_result_type", String.class)))
+                        .amount(row.get("amount", Long.class))
+                        .balanceSnapshot(row.get("balance_snapshot", Long.class))
+                        .transactionId(TransactionIdConverter.format(row.get("transaction_id", Long.class)))
+                        .transactedAt(row.get("transacted_at", LocalDateTime.class))
+                        .build())
+                .one();
+    }
+
+    //id 는 ReactiveAccountRepository.insert 와 같은 이유로 sequence 에서 바로 받는다
+    public Mono<Long> insert(Long accountId, TransactionDto transaction) {
+        return databaseClient.sql("insert into transaction (id, created_at, updated_at, transaction_type," +
+                        " transaction_result_type, amount, balance_snapshot, transaction_id, transacted_at, account_id)" +
+                        " values (next value for transaction_seq, :transactedAt, :transactedAt, :transactionType," +
+                        " :transactionResultType, :amount, :balanceSnapshot, :transactionId, :transactedAt, :accountId)")
+                .bind("transactedAt", transaction.getTransactedAt())
+                .bind("transactionType", transaction.getTransactionType().name())
+                .bind("transactionResultType", transaction.getTransactionResultType().name())
+                .bind("amount", transaction.getAmount())
+                .bind("balanceSnapshot", transaction.getBalanceSnapshot())
+                .bind("transactionId", TransactionIdConverter.parse(transaction.getTransactionId()))
+                .bind("accountId", accountId)
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -1,16 +1,117 @@
 package com.example.account.repository;
 
-import com.example.account.domain.Account;
-import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryItem;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository //Transaction 라는 테이블에 접속하기 위한 인터페이스
 public interface TransactionRepository extends JpaRepository<Transaction,Long> {
 
+    //거래 조회/취소 모두 계좌(번호, id)가 필요하므로 같이 가져온다 (소유주는 가져오지 않음)
+    @EntityGraph(attributePaths = "account")
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    //GET /transaction/{id}, 취소 용: 엔티티 없이 응답에 필요한 컬럼만 조회
+    //13자리 형식이 아니면 V3 이전의 UUID 거래 id 로 보고 legacy 컬럼에서 찾는다
+    default Optional<TransactionDto> findDtoByTransactionId(String transactionId) {
+        return TransactionIdConverter.parse(transactionId) != null
+                ? findDtoByCurrentTransactionId(transactionId)
+                : findDtoByLegacyTransactionId(transactionId);
+    }
+
+    @Query("select new com.example.account.dto.TransactionDto(a.accountNumber," +
+            " t.transactionType, t.transactionResultType, t.amount, t.balanceSnapshot," +
+            " t.transactionId, t.transactedAt)" +
+            " from Transaction t join t.account a where t.transactionId = :transactionId")
+    Optional<TransactionDto> findDtoByCurrentTransactionId(@Param("transactionId") String transactionId);
+
+    @Query("select new com.example.account.dto.TransactionDto(a.accountNumber," +
+            " t.transactionType, t.transactionResultType, t.amount, t.balanceSnapshot," +
+            " t.transactionId, t.transactedAt)" +
+            " from Transaction t join t.account a where t.legacyTransactionId = :transactionId")
+    Optional<TransactionDto> findDtoByLegacyTransactionId(@Param("transactionId") String transactionId);
+
+    //ledger 재처리 시 이미 DB 에 들어간 거래를 건너뛰기 위한 조회
+    @Query("select t.transactionId from Transaction t where t.transactionId in :transactionIds")
+    List<String> findExistingTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
+
+    //journal 모드: 잔액 변경과 같은 트랜잭션에 커밋 표시를 남긴다 (V6, TransactionJournal 참고)
+    @Modifying
+    @Query(value = "insert into transaction_commit (transaction_id) values (:transactionId)",
+            nativeQuery = true)
+    void markCommitted(@Param("transactionId") Long transactionId);
+
+    @Query(value = "select transaction_id from transaction_commit where transaction_id in (:transactionIds)",
+            nativeQuery = true)
+    List<Long> findCommittedTransactionIds(@Param("transactionIds") Collection<Long> transactionIds);
+
+    //transaction 테이블로 옮긴 기록의 표시는 같은 트랜잭션에서 지운다
+    @Modifying
+    @Query(value = "delete from transaction_commit where transaction_id in (:transactionIds)",
+            nativeQuery = true)
+    void deleteCommitMarks(@Param("transactionIds") Collection<Long> transactionIds);
+
+    //거래 내역 첫 페이지 (최신순, Pageable 은 LIMIT 으로만 사용)
+    @Query("select new com.example.account.dto.TransactionHistoryItem(t.id, t.transactionId," +
+            " t.transactionType, t.transactionResultType, t.amount, t.balanceSnapshot, t.transactedAt)" +
+            " from Transaction t where t.account.id = :accountId" +
+            " and (:type is null or t.transactionType = :type)" +
+            " and (:result is null or t.transactionResultType = :result)" +
+            " order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryItem> findHistory(@Param("accountId") Long accountId,
+                                             @Param("type") TransactionType type,
+                                             @Param("result") TransactionResultType result,
+                                             Pageable pageable);
+
+    //다음 페이지: OFFSET 대신 마지막으로 본 (transactedAt, id) 보다 이전 것만 읽는다
+    @Query("select new com.example.account.dto.TransactionHistoryItem(t.id, t.transactionId," +
+            " t.transactionType, t.transactionResultType, t.amount, t.balanceSnapshot, t.transactedAt)" +
+            " from Transaction t where t.account.id = :accountId" +
+            " and (t.transactedAt < :cursorAt or (t.transactedAt = :cursorAt and t.id < :cursorId))" +
+            " and (:type is null or t.transactionType = :type)" +
+            " and (:result is null or t.transactionResultType = :result)" +
+            " order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryItem> findHistoryBefore(@Param("accountId") Long accountId,
+                                                   @Param("cursorAt") LocalDateTime cursorAt,
+                                                   @Param("cursorId") Long cursorId,
+                                                   @Param("type") TransactionType type,
+                                                   @Param("result") TransactionResultType result,
+                                                   Pageable pageable);
+
+    //내보내기용: 트랜잭션 안에서 DB cursor 로 fetch size 만큼씩 읽는다 (Stream 은 반드시 닫아야 함)
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.account.dto.TransactionDto(a.accountNumber," +
+            " t.transactionType, t.transactionResultType, t.amount, t.balanceSnapshot," +
+            " t.transactionId, t.transactedAt)" +
+            " from Transaction t join t.account a" +
+            " where t.transactedAt >= :from and t.transactedAt < :to" +
+            " and (:accountNumber is null or a.accountNumber = :accountNumber)" +
+            " order by t.transactedAt, t.id")
+    Stream<TransactionDto> streamForExport(@Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("accountNumber") String accountNumber);
 }
@@ -0,0 +1,170 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.CacheMetricsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * GET /account 의 사용자별 계좌번호/잔액 목록을 JVM 안에 들고 있는 near-cache
+ * 잔액이 바뀌면 커밋 후에 내 노드의 항목을 지우고, redis pub/sub 으로 다른 노드들에도 알린다
+ * 메시지가 유실되더라도 TTL 이 지나면 다시 읽는다
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountBalanceCache {
+    private static final String TOPIC = "ACCOUNT:INVALIDATE";
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final RedissonClient redissonClient;
+
+    @Value("${account.cache.balance.max-size:10000}")
+    private long maxSize = 10000;
+
+    @Value("${account.cache.balance.ttl-seconds:30}")
+    private long ttlSeconds = 30;
+
+    // 내가 보낸 메시지는 받아도 무시하기 위한 id
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 무효화될 때마다 증가, 읽는 도중에 무효화가 있었다면 읽은 값을 캐시에 남기지 않는다
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private Cache<Long, List<AccountInfo>> cache;
+    private RTopic topic;
+    private int listenerId;
+
+    @PostConstruct
+    public void start() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> onMessage(message));
+    }
+
+    @PreDestroy
+    public void stop() {
+        topic.removeListener(listenerId);
+    }
+
+    public List<AccountInfo> get(Long userId, Supplier<List<AccountInfo>> loader) {
+        List<AccountInfo> cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = generations.get(stripe(userId));
+        List<AccountInfo> loaded = Collections.unmodifiableList(loader.get());
+
+        putIfNotInvalidated(userId, generation, loaded);
+        return loaded;
+    }
+
+    /**
+     * reactive 배포용: 캐시에 없을 때만 loader 를 구독한다 (읽는 동안 event loop 를 막지 않음)
+     * */
+    public Mono<List<AccountInfo>> getReactive(Long userId, Mono<List<AccountInfo>> loader) {
+        return Mono.defer(() -> {
+            List<AccountInfo> cached = cache.getIfPresent(userId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            long generation = generations.get(stripe(userId));
+            return loader.map(accountInfos -> {
+                List<AccountInfo> loaded = Collections.unmodifiableList(accountInfos);
+                putIfNotInvalidated(userId, generation, loaded);
+                return loaded;
+            });
+        });
+    }
+
+    //읽는 도중에 무효화가 있었다면 읽은 값을 캐시에 남기지 않는다
+    private void putIfNotInvalidated(Long userId, long generation, List<AccountInfo> loaded) {
+        if (generations.get(stripe(userId)) == generation) {
+            cache.put(userId, loaded);
+            // 넣는 사이에 무효화가 끼어들었다면 방금 넣은 값을 다시 뺀다
+            if (generations.get(stripe(userId)) != generation) {
+                cache.asMap().remove(userId, loaded);
+            }
+        }
+    }
+
+    /**
+     * 커밋된 뒤에 무효화 (같은 노드에서는 응답이 나가기 전에 지워지므로 내가 쓴 값은 바로 보인다)
+     * 트랜잭션 밖(reactive 서비스는 커밋이 끝난 뒤)에서 부르면 바로 무효화한다
+     * */
+    public void invalidateAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(userId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(userId);
+            }
+        });
+    }
+
+    public CacheMetricsResponse stats() {
+        return CacheMetricsResponse.from("accountBalance", cache);
+    }
+
+    private void invalidate(Long userId) {
+        invalidateLocal(userId);
+        try {
+            topic.publishAsync(nodeId + ":" + userId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish balance invalidation for user {}", userId, e);
+        }
+    }
+
+    void invalidateLocal(Long userId) {
+        generations.incrementAndGet(stripe(userId));
+        cache.invalidate(userId);
+    }
+
+    private void onMessage(String message) {
+        int separator = message.lastIndexOf(':');
+        if (separator < 0 || message.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+
+        try {
+            invalidateLocal(Long.parseLong(message.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed balance invalidation message: {}", message);
+        }
+    }
+
+    private static int stripe(Long userId) {
+        int hash = userId.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * 사용자별 계좌 카운터를 실제 IN_USE 계좌 수에 맞춰주는 보정 작업
+ * (카운터는 생성/해지 트랜잭션 안에서 함께 바뀌지만, 직접 DB 를 고친 경우 등을 대비)
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountCountReconciler {
+    private final AccountUserRepository accountUserRepository;
+
+    @Transactional
+    @Scheduled(cron = "${account.count.reconcile-cron:0 0 4 * * *}")
+    public int reconcile() {
+        int fixed = accountUserRepository.reconcileAccountCounts(AccountStatus.IN_USE);
+        if (fixed > 0) {
+            log.warn("Reconciled account counts of {} users", fixed);
+        }
+        return fixed;
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LedgerEntryType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 잔액의 원본이 되는 append-only ledger (account.ledger.enabled=true)
+ * 1. 사용/취소는 memory-mapped segment 파일에 64byte 고정 길이 기록으로 쓰인다
+ *    (sequence 로 위치가 정해지므로 별도 index 가 필요 없음)
+ * 2. 계좌별 잔액은 메모리의 projection 이고, 기동 시 snapshot + 이후 기록 재적용으로 다시 만든다
+ * 3. account/transaction 테이블은 AccountLedgerProjector 가 force 된 기록만 따라 쓰는 읽기 모델이다
+ * 기록은 page cache 에 바로 반영되므로 프로세스가 죽어도 남고,
+ * OS 장애 시에는 마지막 force 이후(force-interval-ms) 기록까지만 보장된다
+ * 잔액이 노드의 메모리에 있으므로 한 노드에서만 기록한다 (AccountLedgerOwner 의 임대를 가진 동안만)
+ * */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.ledger.enabled", havingValue = "true")
+public class AccountLedger {
+    static final int RECORD_BYTES = 64;
+    private static final int CRC_OFFSET = 60;
+    private static final String SEGMENT_SUFFIX = ".ledger";
+    private static final String SNAPSHOT_FILE = "snapshot";
+    private static final String PROJECTED_FILE = "projected";
+
+    @Value("${account.ledger.dir:ledger}")
+    private String dir = "ledger";
+
+    @Value("${account.ledger.records-per-segment:1048576}")
+    private int recordsPerSegment = 1 << 20;
+
+    //redis 없이 직접 만든 경우(테스트)에는 null
+    @Autowired
+    private AccountLedgerOwner owner;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+
+    // 계좌 id -> 잔액 (쓰기는 append lock 안에서만)
+    private final Map<Long, Long> balances = new ConcurrentHashMap<>();
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+
+    private Path directory;
+    private volatile long lastSequence;
+    // projector 는 디스크로 내려간 기록까지만 읽는다
+    private volatile long forcedSequence;
+    private volatile long projectedSequence;
+    private volatile long snapshotSequence;
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+
+        snapshotSequence = readSnapshot();
+        projectedSequence = readSequence(PROJECTED_FILE);
+        for (long index : listSegments()) {
+            segments.put(index, map(index));
+        }
+
+        //snapshot 이후 기록을 순서대로 다시 적용 (sequence 나 CRC 가 맞지 않는 곳에서 멈춤)
+        long sequence = snapshotSequence;
+        LedgerEntry entry;
+        while ((entry = readEntry(sequence + 1)) != null) {
+            balances.put(entry.getAccountId(), entry.getBalanceAfter());
+            sequence++;
+        }
+        clearAfter(sequence);
+        lastSequence = sequence;
+        forcedSequence = sequence;
+
+        if (projectedSequence > sequence) {
+            log.error("Read model is ahead of the ledger ({} > {}), ledger tail was lost",
+                    projectedSequence, sequence);
+        }
+        log.info("Ledger recovered {} accounts up to sequence {} (snapshot {})",
+                balances.size(), sequence, snapshotSequence);
+    }
+
+    @PreDestroy
+    public void stop() {
+        force();
+    }
+
+    public LedgerEntry debit(Account account, long amount, String transactionId) {
+        return append(account, LedgerEntryType.USE, -amount, amount, transactionId);
+    }
+
+    public LedgerEntry credit(Account account, long amount, String transactionId) {
+        return append(account, LedgerEntryType.CANCEL, amount, amount, transactionId);
+    }
+
+    // ledger 가 아직 모르는 계좌는 DB 의 잔액이 그대로 원본
+    public long balanceOf(Account account) {
+        return balances.getOrDefault(account.getId(), account.getBalance());
+    }
+
+    /**
+     * fromSequence 부터 force 된 기록을 max 개까지 읽는다 (projector 용)
+     * */
+    public List<LedgerEntry> read(long fromSequence, int max) {
+        long to = Math.min(forcedSequence, fromSequence + max - 1);
+        List<LedgerEntry> entries = new ArrayList<>((int) Math.max(0L, to - fromSequence + 1));
+        for (long sequence = fromSequence; sequence <= to; sequence++) {
+            LedgerEntry entry = readEntry(sequence);
+            if (entry == null) {
+                throw new IllegalStateException("Ledger entry " + sequence + " is missing");
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    public long getProjectedSequence() {
+        return projectedSequence;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    // 읽기 모델에 sequence 까지 반영되었음을 기록
+    public void markProjected(long sequence) throws IOException {
+        writeAtomically(PROJECTED_FILE, out -> out.writeBytes(Long.toString(sequence)));
+        projectedSequence = sequence;
+    }
+
+    /**
+     * 마지막 force 이후 기록이 걸친 segment 를 디스크로 내린다
+     * 응답은 force 를 기다리지 않으므로 이 주기가 OS 장애 시 잃을 수 있는 최대 구간이다
+     * */
+    @Scheduled(fixedDelayString = "${account.ledger.force-interval-ms:50}")
+    public void force() {
+        forceLock.lock();
+        try {
+            long sequence = lastSequence;
+            if (sequence == forcedSequence) {
+                return;
+            }
+            for (long index = segmentIndex(forcedSequence + 1); index <= segmentIndex(sequence); index++) {
+                MappedByteBuffer segment = segments.get(index);
+                if (segment != null) {
+                    segment.force();
+                }
+            }
+            forcedSequence = sequence;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * 현재 잔액 전체를 snapshot 파일로 남기고,
+     * snapshot 과 읽기 모델 양쪽에 반영된 segment 는 지운다 (재기동 시 재적용 구간이 짧아짐)
+     * */
+    @Scheduled(fixedDelayString = "${account.ledger.snapshot-interval-ms:60000}")
+    public void snapshot() throws IOException {
+        long sequence;
+        Map<Long, Long> copy;
+        appendLock.lock();
+        try {
+            sequence = lastSequence;
+            if (sequence == snapshotSequence) {
+                return;
+            }
+            //snapshot 에 들어간 잔액의 기록은 반드시 디스크에 있어야 한다
+            force();
+            copy = new HashMap<>(balances);
+        } finally {
+            appendLock.unlock();
+        }
+
+        writeAtomically(SNAPSHOT_FILE, out -> {
+            out.writeLong(sequence);
+            out.writeInt(copy.size());
+            for (Map.Entry<Long, Long> balance : copy.entrySet()) {
+                out.writeLong(balance.getKey());
+                out.writeLong(balance.getValue());
+            }
+        });
+        snapshotSequence = sequence;
+        deleteSegmentsUpTo(Math.min(sequence, projectedSequence));
+        log.info("Ledger snapshot of {} accounts at sequence {}", copy.size(), sequence);
+    }
+
+    private LedgerEntry append(Account account, LedgerEntryType type, long delta, long amount,
+                               String transactionId) {
+        Long transactionIdValue = TransactionIdConverter.parse(transactionId);
+        if (transactionIdValue == null) {
+            throw new IllegalArgumentException("Invalid transaction id: " + transactionId);
+        }
+
+        appendLock.lock();
+        try {
+            //소유권을 잃었다면 다른 노드가 같은 계좌를 열었을 수 있다
+            if (owner != null && !owner.isHeld()) {
+                throw new IllegalStateException("Ledger owner lease is not held by this node");
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Long balance = balances.get(account.getId());
+            if (balance == null) {
+                balance = account.getBalance();
+                write(account.getId(), LedgerEntryType.OPEN, balance, balance, 0L, now);
+            }
+
+            long balanceAfter = balance + delta;
+            if (balanceAfter < 0) {
+                throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            }
+            return write(account.getId(), type, amount, balanceAfter, transactionIdValue, now);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    //append lock 안에서만 호출
+    private LedgerEntry write(long accountId, LedgerEntryType type, long amount, long balanceAfter,
+                              long transactionId, LocalDateTime transactedAt) {
+        long sequence = lastSequence + 1;
+        MappedByteBuffer segment = segmentFor(sequence);
+        int offset = recordOffset(sequence);
+
+        segment.putLong(offset, sequence);
+        segment.putLong(offset + 8, accountId);
+        segment.putLong(offset + 16, amount);
+        segment.putLong(offset + 24, balanceAfter);
+        segment.putLong(offset + 32, transactionId);
+        segment.putLong(offset + 40, transactedAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        segment.put(offset + 48, (byte) type.ordinal());
+        segment.putInt(offset + CRC_OFFSET, crc(segment, offset));
+
+        balances.put(accountId, balanceAfter);
+        lastSequence = sequence;
+        return decode(segment, offset);
+    }
+
+    private LedgerEntry readEntry(long sequence) {
+        MappedByteBuffer segment = segments.get(segmentIndex(sequence));
+        if (segment == null) {
+            return null;
+        }
+        int offset = recordOffset(sequence);
+        if (segment.getLong(offset) != sequence
+                || segment.getInt(offset + CRC_OFFSET) != crc(segment, offset)) {
+            return null;
+        }
+        return decode(segment, offset);
+    }
+
+    private static LedgerEntry decode(ByteBuffer segment, int offset) {
+        LedgerEntryType type = LedgerEntryType.values()[segment.get(offset + 48)];
+        return LedgerEntry.builder()
+                .sequence(segment.getLong(offset))
+                .accountId(segment.getLong(offset + 8))
+                .amount(segment.getLong(offset + 16))
+                .balanceAfter(segment.getLong(offset + 24))
+                .transactionId(type == LedgerEntryType.OPEN
+                        ? null : TransactionIdConverter.format(segment.getLong(offset + 32)))
+                .transactedAt(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(segment.getLong(offset + 40)), ZoneOffset.UTC))
+                .type(type)
+                .build();
+    }
+
+    private static int crc(ByteBuffer segment, int offset) {
+        ByteBuffer record = segment.duplicate();
+        record.limit(offset + CRC_OFFSET).position(offset);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer segmentFor(long sequence) {
+        long index = segmentIndex(sequence);
+        MappedByteBuffer segment = segments.get(index);
+        if (segment != null) {
+            return segment;
+        }
+        try {
+            segment = map(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(index, segment);
+        return segment;
+    }
+
+    private MappedByteBuffer map(long index) throws IOException {
+        //channel 을 닫아도 mapping 은 유지된다
+        try (FileChannel channel = FileChannel.open(segmentPath(index), CREATE, READ, WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0L, (long) recordsPerSegment * RECORD_BYTES);
+        }
+    }
+
+    /**
+     * 복구한 마지막 기록 뒤에 남은 내용을 지운다
+     * page 가 순서대로 내려가지 않으므로 빈 칸 뒤에 예전 기록처럼 보이는 값이 남을 수 있고,
+     * 지우지 않으면 다음 복구 때 그 값을 이어서 읽게 된다
+     * */
+    private void clearAfter(long sequence) throws IOException {
+        long index = segmentIndex(sequence + 1);
+        for (long other : new ArrayList<>(segments.keySet())) {
+            if (other > index) {
+                segments.remove(other);
+                Files.deleteIfExists(segmentPath(other));
+            }
+        }
+
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            return;
+        }
+        boolean cleared = false;
+        //비어 있는(sparse) page 는 읽기만 하고 값이 있는 곳만 0 으로 쓴다
+        for (int at = recordOffset(sequence + 1); at < segment.capacity(); at += 8) {
+            if (segment.getLong(at) != 0L) {
+                segment.putLong(at, 0L);
+                cleared = true;
+            }
+        }
+        if (cleared) {
+            log.warn("Cleared torn ledger tail after sequence {}", sequence);
+            segment.force();
+        }
+    }
+
+    // 모든 기록이 sequence 이하인 segment 를 지운다
+    private void deleteSegmentsUpTo(long sequence) throws IOException {
+        for (long index : new ArrayList<>(segments.keySet())) {
+            if (index * recordsPerSegment <= sequence) {
+                segments.remove(index);
+                Files.deleteIfExists(segmentPath(index));
+            }
+        }
+    }
+
+    private long readSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return 0L;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            long sequence = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                balances.put(in.readLong(), in.readLong());
+            }
+            return sequence;
+        }
+    }
+
+    private long readSequence(String fileName) throws IOException {
+        Path path = directory.resolve(fileName);
+        if (!Files.exists(path)) {
+            return 0L;
+        }
+        return Long.parseLong(new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim());
+    }
+
+    //임시 파일에 쓰고 fsync 한 뒤 rename 해서 항상 온전한 파일만 보이게 한다
+    private void writeAtomically(String fileName, FileContent content) throws IOException {
+        Path tmp = directory.resolve(fileName + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel)));
+            content.write(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(fileName), REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private long segmentIndex(long sequence) {
+        return (sequence - 1) / recordsPerSegment + 1;
+    }
+
+    private int recordOffset(long sequence) {
+        return (int) ((sequence - 1) % recordsPerSegment) * RECORD_BYTES;
+    }
+
+    @FunctionalInterface
+    private interface FileContent {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
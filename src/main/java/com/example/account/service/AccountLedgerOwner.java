@@ -0,0 +1,85 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * ledger 모드는 한 노드에서만 동작한다 (ledger 와 메모리의 잔액이 노드마다 따로 있으므로
+ * 두 노드가 같은 계좌를 열면 둘 다 차감을 받고, 읽기 모델은 마지막에 쓴 노드의 잔액으로 덮인다)
+ * 1. 기동할 때 redis 의 LEDGER:OWNER 키를 TTL 로 임대하고, 다른 노드가 가지고 있으면 기동을 실패시킨다
+ * 2. 마지막으로 갱신에 성공한 시각 + TTL 이 지나면 (redis 의 키가 만료되기 전에) 스스로 기록을 멈춘다
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.ledger.enabled", havingValue = "true")
+public class AccountLedgerOwner {
+    static final String OWNER_KEY = "LEDGER:OWNER";
+
+    private final RedissonClient redissonClient;
+
+    //갱신은 owner-lease-renew-ms 마다 (TTL 보다 충분히 짧아야 redis 가 잠깐 느려도 소유권을 잃지 않는다)
+    @Value("${account.ledger.owner-lease-ttl-ms:30000}")
+    private long leaseTtlMillis = 30000;
+
+    // 이 인스턴스의 임대 표시 (재기동한 같은 호스트와도 구분되도록 매번 새로 만든다)
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    // 이 시각(nanoTime) 까지는 다른 노드가 키를 가져갈 수 없다
+    private volatile long heldUntilNanos;
+
+    @PostConstruct
+    public void acquire() {
+        long requestedAt = System.nanoTime();
+        if (!redissonClient.<String>getBucket(OWNER_KEY, StringCodec.INSTANCE)
+                .setIfAbsent(leaseOwner, Duration.ofMillis(leaseTtlMillis))) {
+            throw new IllegalStateException("Ledger is owned by another node (" + OWNER_KEY
+                    + "), ledger mode runs on a single node");
+        }
+        heldUntilNanos = requestedAt + Duration.ofMillis(leaseTtlMillis).toNanos();
+        log.info("Ledger owner lease acquired: {}", leaseOwner);
+    }
+
+    @Scheduled(fixedDelayString = "${account.ledger.owner-lease-renew-ms:10000}")
+    public void renew() {
+        //요청 전에 시각을 재야 redis 의 만료보다 먼저 멈춘다
+        long requestedAt = System.nanoTime();
+        if (runLeaseScript(RedisLeaseScripts.RENEW) == 0) {
+            //이미 만료되었다면 그 사이 다른 노드가 ledger 를 열었을 수 있으므로 다시 가져오지 않는다
+            log.error("Ledger owner lease was lost, ledger stops accepting entries");
+            heldUntilNanos = requestedAt;
+            return;
+        }
+        heldUntilNanos = requestedAt + Duration.ofMillis(leaseTtlMillis).toNanos();
+    }
+
+    @PreDestroy
+    public void release() {
+        runLeaseScript(RedisLeaseScripts.RELEASE);
+    }
+
+    public boolean isHeld() {
+        return System.nanoTime() - heldUntilNanos < 0;
+    }
+
+    private long runLeaseScript(String script) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, script, RScript.ReturnType.INTEGER,
+                        Collections.singletonList(OWNER_KEY),
+                        leaseOwner, String.valueOf(leaseTtlMillis));
+        return result;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.LedgerEntryType;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * ledger 기록을 account/transaction 테이블(읽기 모델)에 따라 쓴다
+ * 잔액은 배치 안의 마지막 값으로 계좌당 한 번만 update 하고, 거래는 batch insert 한다
+ * 반영 후 projected sequence 를 옮기며, 그 전에 죽어서 다시 반영해도
+ * 잔액은 같은 값으로 덮어쓰고 이미 있는 거래 id 는 건너뛰므로 결과가 같다
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.ledger.enabled", havingValue = "true")
+public class AccountLedgerProjector {
+    private final AccountLedger accountLedger;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountBalanceCache accountBalanceCache;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${account.ledger.project-batch-size:1000}")
+    private int batchSize = 1000;
+
+    private final ReentrantLock projectLock = new ReentrantLock();
+
+    @Scheduled(fixedDelayString = "${account.ledger.project-interval-ms:200}")
+    public int project() {
+        projectLock.lock();
+        try {
+            int projected = 0;
+            while (true) {
+                List<LedgerEntry> entries = accountLedger.read(
+                        accountLedger.getProjectedSequence() + 1, batchSize);
+                if (entries.isEmpty()) {
+                    return projected;
+                }
+
+                try {
+                    apply(entries);
+                    accountLedger.markProjected(entries.get(entries.size() - 1).getSequence());
+                } catch (RuntimeException | IOException e) {
+                    //다음 주기에 같은 위치부터 다시 반영
+                    log.error("Failed to project {} ledger entries", entries.size(), e);
+                    return projected;
+                }
+                projected += entries.size();
+            }
+        } finally {
+            projectLock.unlock();
+        }
+    }
+
+    private void apply(List<LedgerEntry> entries) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Map<Long, Long> balances = new HashMap<>();
+            List<LedgerEntry> transactions = new ArrayList<>(entries.size());
+            for (LedgerEntry entry : entries) {
+                balances.put(entry.getAccountId(), entry.getBalanceAfter());
+                if (entry.getType() != LedgerEntryType.OPEN) {
+                    transactions.add(entry);
+                }
+            }
+
+            for (Account account : accountRepository.findAllById(balances.keySet())) {
+                account.setBalance(balances.get(account.getId()));
+                accountBalanceCache.invalidateAfterCommit(account.getAccountUser().getId());
+            }
+
+            if (transactions.isEmpty()) {
+                return;
+            }
+            Set<String> existing = new HashSet<>(transactionRepository.findExistingTransactionIds(
+                    transactions.stream().map(LedgerEntry::getTransactionId).collect(Collectors.toList())));
+            transactionRepository.saveAll(transactions.stream()
+                    .filter(entry -> !existing.contains(entry.getTransactionId()))
+                    .map(this::toTransaction)
+                    .collect(Collectors.toList()));
+        });
+    }
+
+    private Transaction toTransaction(LedgerEntry entry) {
+        return Transaction.builder()
+                .transactionId(entry.getTransactionId())
+                .account(accountRepository.getReferenceById(entry.getAccountId()))
+                .transactionType(TransactionType.valueOf(entry.getType().name()))
+                .transactionResultType(TransactionResultType.S)
+                .amount(entry.getAmount())
+                .balanceSnapshot(entry.getBalanceAfter())
+                .transactedAt(entry.getTransactedAt())
+                .build();
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 계좌별 mailbox 실행기
+ * 1. 같은 계좌로 들어온 요청은 크기가 정해진 계좌별 큐에 쌓인다 (가득 차면 ACCOUNT_TRANSACTION_LOCK)
+ * 2. 계좌마다 worker 하나만 큐를 비우므로 lock 경쟁 없이 순서대로 처리된다
+ * 3. 한 번에 꺼낸 요청들은 redis lock 한 번, DB 트랜잭션 한 번으로 묶어서 처리하고
+ *    그 중 하나라도 실패하면 배치를 롤백한 뒤 한 건씩 다시 처리한다
+ *    (ledger 모드에서는 ledger 기록이 롤백되지 않으므로 다시 처리하면 두 번 차감된다, 배치 없이 한 건씩만 처리)
+ * 4. 큐를 다 비운 mailbox 는 map 에서 치운다 (없는 계좌번호로 들어온 요청도 mailbox 를 남기지 않는다)
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountMailboxExecutor {
+    private final LockService lockService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${account.mailbox.capacity:100}")
+    private int capacity;
+
+    @Value("${account.mailbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${account.mailbox.workers:8}")
+    private int workers;
+
+    @Value("${account.mailbox.wait-timeout-ms:5000}")
+    private long waitTimeoutMillis;
+
+    @Value("${account.ledger.enabled:false}")
+    private boolean ledgerEnabled;
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private ExecutorService workerPool;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void start() {
+        workerPool = Executors.newFixedThreadPool(workers,
+                new CustomizableThreadFactory("account-mailbox-"));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
+    }
+
+    /**
+     * 요청을 계좌 큐에 넣고 결과를 future 로 돌려받는다
+     * 대기시간 안에 처리가 시작되지 못하면 큐에서 빠지고 ACCOUNT_TRANSACTION_LOCK 으로 실패
+     * (이미 처리 중이면 결과를 버릴 수 없으므로 끝날 때까지 기다린다,
+     *  요청 timeout 으로 실패 응답이 나간 뒤에 잔액이 바뀌는 일이 없도록 대기시간은 요청 timeout 보다 짧게)
+     * */
+    public CompletableFuture<Object> submit(String accountNumber, LockPolicy lockPolicy,
+                                            AccountTask task) {
+        Envelope envelope;
+        try {
+            envelope = enqueue(accountNumber, lockPolicy, task);
+        } catch (AccountException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture.delayedExecutor(waitTimeoutMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            // 아직 시작 전이면 worker 가 건너뛰도록 하고 실패 처리
+            if (envelope.started.compareAndSet(false, true)) {
+                log.error("Mailbox wait timed out for accountNumber: {}", accountNumber);
+                envelope.result.completeExceptionally(
+                        new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+            }
+        });
+        return envelope.result;
+    }
+
+    private Envelope enqueue(String accountNumber, LockPolicy lockPolicy, AccountTask task) {
+        Envelope envelope = new Envelope(lockPolicy, task);
+        AtomicBoolean offered = new AtomicBoolean();
+        // 같은 key 의 compute 는 한 번에 하나씩 실행되므로, 비운 mailbox 를 치우는 것과 넣는 것이 겹치지 않는다
+        Mailbox mailbox = mailboxes.compute(accountNumber, (key, current) -> {
+            Mailbox target = current != null ? current : new Mailbox(capacity);
+            offered.set(target.queue.offer(envelope));
+            return target;
+        });
+
+        if (!offered.get()) {
+            log.error("Mailbox is full for accountNumber: {}", accountNumber);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+
+        schedule(accountNumber, mailbox);
+        return envelope;
+    }
+
+    private void schedule(String accountNumber, Mailbox mailbox) {
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            workerPool.execute(() -> drain(accountNumber, mailbox));
+        }
+    }
+
+    private void drain(String accountNumber, Mailbox mailbox) {
+        try {
+            List<Envelope> batch = new ArrayList<>(batchSize);
+            Envelope envelope;
+            while (batch.size() < batchSize && (envelope = mailbox.queue.poll()) != null) {
+                //대기시간이 지나 호출자가 이미 포기한 요청은 건너뛴다
+                if (envelope.started.compareAndSet(false, true)) {
+                    batch.add(envelope);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                runBatch(accountNumber, batch);
+            }
+        } catch (RuntimeException e) {
+            log.error("Mailbox drain failed for accountNumber: {}", accountNumber, e);
+        } finally {
+            mailbox.scheduled.set(false);
+            if (!mailbox.queue.isEmpty()) {
+                schedule(accountNumber, mailbox);
+            } else {
+                remove(accountNumber, mailbox);
+            }
+        }
+    }
+
+    // enqueue 의 compute 와 같은 key 로 잠근 채 다시 확인하므로, 그 사이에 들어온 요청이 있으면 남겨둔다
+    private void remove(String accountNumber, Mailbox mailbox) {
+        mailboxes.computeIfPresent(accountNumber, (key, current) ->
+                current == mailbox && current.queue.isEmpty() && !current.scheduled.get()
+                        ? null : current);
+    }
+
+    int getMailboxCount() {
+        return mailboxes.size();
+    }
+
+    private void runBatch(String accountNumber, List<Envelope> batch) {
+        // 배치가 얼마나 걸릴지 모르므로 lease 는 watchdog 에 맡긴다
+        LockPolicy requested = batch.get(0).lockPolicy;
+        LockPolicy lockPolicy = new LockPolicy(requested.getWaitTime(), -1L,
+                requested.isFair(), requested.getWaitType());
+
+        try {
+            lockService.lock(accountNumber, lockPolicy);
+        } catch (AccountException e) {
+            batch.forEach(envelope -> envelope.result.completeExceptionally(e));
+            return;
+        }
+
+        try {
+            if (ledgerEnabled || batch.size() == 1 || !runInSingleTransaction(batch)) {
+                batch.forEach(this::runAlone);
+            }
+        } finally {
+            lockService.unlock(accountNumber, lockPolicy);
+        }
+    }
+
+    private boolean runInSingleTransaction(List<Envelope> batch) {
+        List<Object> results = new ArrayList<>(batch.size());
+
+        Boolean committed;
+        try {
+            committed = transactionTemplate.execute(status -> {
+                for (Envelope envelope : batch) {
+                    try {
+                        results.add(envelope.task.run());
+                    } catch (Throwable e) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                }
+                return true;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Mailbox batch commit failed, retrying one by one", e);
+            return false;
+        }
+
+        if (!Boolean.TRUE.equals(committed)) {
+            return false;
+        }
+
+        // 커밋이 끝난 뒤에만 결과를 돌려준다
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(results.get(i));
+        }
+        return true;
+    }
+
+    private void runAlone(Envelope envelope) {
+        try {
+            envelope.result.complete(envelope.task.run());
+        } catch (Throwable e) {
+            envelope.result.completeExceptionally(e);
+        }
+    }
+
+    private static class Mailbox {
+        private final BlockingQueue<Envelope> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Mailbox(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Envelope {
+        private final LockPolicy lockPolicy;
+        private final AccountTask task;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 계좌번호 발급기
+ * 저장소에서 번호 블록을 예약해두고 블록 안의 번호는 메모리에서 CAS 로 나눠준다
+ * (블록이 바닥났을 때만 저장소에 다녀오므로 계좌 생성마다 조회 쿼리가 나가지 않는다)
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountNumberAllocator {
+    //check digit 을 붙이면 본번호 9자리 + 1자리, 아니면 본번호 10자리
+    private static final long BASE_NUMBER = 1_000_000_000L;
+    private static final long BASE_NUMBER_WITH_CHECK_DIGIT = 100_000_000L;
+
+    private final AccountNumberBlockSource accountNumberBlockSource;
+    private final AccountRepository accountRepository;
+
+    @Value("${account.number.block-size:100}")
+    private int blockSize = 100;
+
+    @Value("${account.number.check-digit:false}")
+    private boolean checkDigit;
+
+    //refill 은 저장소(redis/DB)를 기다리므로 synchronized 대신 ReentrantLock 을 쓴다
+    //(synchronized 안에서 block 되면 가상 쓰레드가 carrier 쓰레드에 고정된다)
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    private volatile Block block = Block.EMPTY;
+
+    public String nextAccountNumber() {
+        long number = nextNumber();
+        long base = checkDigit ? BASE_NUMBER_WITH_CHECK_DIGIT : BASE_NUMBER;
+        //자릿수가 늘어나면 기존 번호 체계가 깨지므로 발급을 멈춘다
+        if (number >= base * 9) {
+            throw new AccountException(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED);
+        }
+
+        String accountNumber = Long.toString(base + number);
+        return checkDigit ? accountNumber + luhnCheckDigit(accountNumber) : accountNumber;
+    }
+
+    private long nextNumber() {
+        while (true) {
+            Block current = block;
+            long number = current.next.getAndIncrement();
+            if (number < current.end) {
+                return number;
+            }
+            refill(current);
+        }
+    }
+
+    //블록을 다 쓴 쓰레드들 중 하나만 새 블록을 예약한다
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (block != exhausted) {
+                return;
+            }
+            long start = accountNumberBlockSource.reserve(blockSize, nextUnusedNumber());
+            log.debug("Reserved account number block [{}, {})", start, start + blockSize);
+            block = new Block(start, start + blockSize);
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    //저장소가 비었거나(redis 초기화 등) 기존 계좌보다 뒤처져도 이미 쓰인 번호를 다시 주지 않도록 DB 의 최대 번호 다음부터
+    //(블록을 예약할 때만 호출되고, account_number 의 최대값 조회이므로 계좌 생성마다 나가는 쿼리는 아니다)
+    private long nextUnusedNumber() {
+        return accountRepository.findMaxAccountNumber()
+                .map(accountNumber -> checkDigit
+                        ? Long.parseLong(accountNumber.substring(0, accountNumber.length() - 1))
+                        - BASE_NUMBER_WITH_CHECK_DIGIT
+                        : Long.parseLong(accountNumber) - BASE_NUMBER)
+                .map(number -> number + 1)
+                .orElse(0L);
+    }
+
+    static int luhnCheckDigit(String number) {
+        int sum = 0;
+        boolean doubled = true; //check digit 바로 앞자리부터 두 배
+        for (int i = number.length() - 1; i >= 0; i--) {
+            int digit = number.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static class Block {
+        private static final Block EMPTY = new Block(0, 0);
+
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
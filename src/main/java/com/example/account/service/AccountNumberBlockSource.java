@@ -0,0 +1,13 @@
+package com.example.account.service;
+
+/**
+ * 계좌번호 블록을 예약해주는 저장소 (redis 카운터, DB 시퀀스 등)
+ * 노드마다 blockSize 개씩 한 번에 예약하고 나머지는 메모리에서 나눠준다
+ * */
+public interface AccountNumberBlockSource {
+    /**
+     * [반환값, 반환값 + blockSize) 구간을 이 노드 전용으로 예약하고 시작 번호를 돌려준다
+     * floor 보다 작은 번호는 이미 계좌에 쓰였으므로, 저장소가 뒤처져 있으면 floor 까지 올린 뒤 예약한다
+     * */
+    long reserve(int blockSize, long floor);
+}
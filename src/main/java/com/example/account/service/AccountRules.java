@@ -0,0 +1,65 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 계좌/거래 요청의 검증 규칙
+ * servlet 서비스(AccountService, TransactionService)와 reactive 서비스가 같은 규칙으로 실패 응답을 만들도록 한 곳에 둔다
+ * */
+final class AccountRules {
+    static final int MAX_ACCOUNT_PER_USER = 10;
+
+    private AccountRules() {
+    }
+
+    static void validateAccountInUse(Long userId, Account account) {
+        if(!Objects.equals(userId, account.getAccountUser().getId())){ //조금 더 null 에 대해서 안전한 비교방법
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+
+        if(account.getAccountStatus() != AccountStatus.IN_USE){
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+    }
+
+    static void validateUseBalance(Long userId, Account account, Long amount) {
+        validateAccountInUse(userId, account);
+
+        if(account.getBalance() < amount){
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    //계좌번호는 unique 이므로 거래의 계좌번호로 같은 계좌인지 확인
+    static void validateCancelBalance(TransactionDto transaction, Account account, Long amount) {
+        if(!Objects.equals(transaction.getAccountNumber(), account.getAccountNumber())){
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        if(!Objects.equals(transaction.getAmount(), amount)){
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if(transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))){
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+    }
+
+    //balance 는 ledger 모드라면 ledger 의 잔액 (테이블의 잔액이 늦을 수 있음)
+    static void validateDeleteAccount(Long userId, Account account, long balance) {
+        if(!Objects.equals(userId, account.getAccountUser().getId())){
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        if(account.getAccountStatus() == AccountStatus.UNREGISTERED){
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if(balance > 0){
+            throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
@@ -10,13 +11,12 @@ import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor //꼭 필요한 argument 가 들어간 생성자
@@ -29,6 +29,15 @@ public class AccountService { //AccountRepository 를 활용하여 데이터를
 
     private final AccountUserRepository accountUserRepository;
 
+    private final AccountNumberAllocator accountNumberAllocator;
+
+    private final AccountBalanceCache accountBalanceCache;
+
+    private final AccountUserCache accountUserCache;
+
+    //account.ledger.enabled=true 일 때만 주입됨
+    @Autowired(required = false)
+    private AccountLedger accountLedger;
 
 
     /**
@@ -48,11 +57,8 @@ public class AccountService { //AccountRepository 를 활용하여 데이터를
         validate(accountUser);
 
 
-        //이제 계좌번호생성?  가장 마지막에 생성된 계좌를 가져오고 그 계좌의 계좌번호보다 하나 더 큰 숫자를 넣어줄 것임
-        //본래 .toString썻는데 그러면 .orElse() 안나와서 + ""로 문자열화
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+        //계좌번호는 노드별로 예약해둔 블록에서 꺼내온다 (조회 쿼리 없이, 동시 생성 시에도 중복 없음)
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
 
         Account account = accountRepository.save(
                  Account.builder()
@@ -63,6 +69,7 @@ public class AccountService { //AccountRepository 를 활용하여 데이터를
                          .registeredAt(LocalDateTime.now())
                          .build()
          );
+        accountBalanceCache.invalidateAfterCommit(userId);
 
         return AccountDto.fromEntity(account);
 
@@ -70,8 +77,10 @@ public class AccountService { //AccountRepository 를 활용하여 데이터를
 
 
     //ctrl + shift + m 로 생성된 메소드
+    // COUNT 대신 사용자별 카운터를 조건부로 올려서 한도를 확인 (해지된 계좌는 세지 않음)
     private void validate(AccountUser accountUser) {
-        if(accountRepository.countByAccountUser(accountUser) >= 10){
+        if(accountUserRepository.incrementAccountCount(
+                accountUser.getId(), AccountRules.MAX_ACCOUNT_PER_USER) == 0){
             throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
         }
     }
@@ -79,7 +88,7 @@ public class AccountService { //AccountRepository 를 활용하여 데이터를
 
     @Transactional
     public Account getAccount(Long id){
-        return accountRepository.findById(id).get();
+        return accountRepository.findWithAccountUserById(id).get();
     }
 
     @Transactional
@@ -95,6 +104,8 @@ public class AccountService { //AccountRepository 를 활용하여 데이터를
         account.setUnRegisteredAt(LocalDateTime.now());
 
         accountRepository.save(account);
+        accountUserRepository.decrementAccountCount(accountUser.getId());
+        accountBalanceCache.invalidateAfterCommit(accountUser.getId());
 
         return  AccountDto.fromEntity(account);
     }
@@ -102,33 +113,31 @@ public class AccountService { //AccountRepository 를 활용하여 데이터를
 
     //추출 메소드  - 중복코드 찾기 (ctrl + shift + f)
     private AccountUser getAccountUser(Long userId) {
-        AccountUser accountUser = accountUserRepository.findById(userId)  //조회를 했을 때 나오는 기본적인 타입이 옵셔널이다
+        AccountUser accountUser = accountUserCache.findById(userId)  //조회를 했을 때 나오는 기본적인 타입이 옵셔널이다
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));//옵셔널에서 데이터가 없을때 에러를 뱉고 데이터가 있을때는 그 값을 준다
         return accountUser;
     }
 
 
+    //ledger 모드에서는 테이블의 잔액이 늦을 수 있으므로 ledger 의 잔액으로 확인
     private void validateDeleteAccount(AccountUser accountUser, Account account) {
-        if(!Objects.equals(accountUser.getId(), account.getAccountUser().getId())){
-            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
-        }
-        if(account.getAccountStatus() == AccountStatus.UNREGISTERED){
-            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
-        }
-        if(account.getBalance() > 0){
-            throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
-        }
+        long balance = accountLedger != null ? accountLedger.balanceOf(account) : account.getBalance();
+        AccountRules.validateDeleteAccount(accountUser.getId(), account, balance);
     }
 
 
-    @Transactional
-    public List<AccountDto> getAccountByUserId(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
+    //잔액이 바뀔 때마다 무효화되는 near-cache 를 먼저 확인
+    public List<AccountInfo> getAccountByUserId(Long userId) {
+        return accountBalanceCache.get(userId, () -> loadAccountInfos(userId));
+    }
 
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+    //계좌번호/잔액만 projection 으로 바로 조회, 결과가 없을 때만 사용자 존재 여부를 확인한다
+    private List<AccountInfo> loadAccountInfos(Long userId) {
+        List<AccountInfo> accountInfos = accountRepository.findAccountInfosByUserId(userId);
 
-        return  accounts.stream()
-                .map(AccountDto::fromEntity) //or  .map(account -> AccountDto.fromEntity(account))
-                .collect(Collectors.toList());
+        if(accountInfos.isEmpty() && !accountUserCache.existsById(userId)){
+            throw new AccountException(ErrorCode.USER_NOT_FOUND);
+        }
+        return accountInfos;
     }
 }
@@ -0,0 +1,7 @@
+package com.example.account.service;
+
+//lock/큐/재시도로 감싸서 실행할 계좌 작업 (보통 pjp::proceed)
+@FunctionalInterface
+public interface AccountTask {
+    Object run() throws Throwable;
+}
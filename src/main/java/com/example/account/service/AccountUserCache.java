@@ -0,0 +1,71 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.CacheMetricsResponse;
+import com.example.account.repository.AccountUserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 존재가 확인된 사용자 id 를 기억해두고, 다음부터는 SELECT 없이 참조(proxy)만 돌려준다
+ * 사용자 엔티티 자체를 쓰레드끼리 공유하지 않기 위해 id 만 캐시한다
+ * (없는 사용자는 캐시하지 않으므로 새로 생긴 사용자는 바로 보인다)
+ * */
+@Component
+@RequiredArgsConstructor
+public class AccountUserCache {
+    private final AccountUserRepository accountUserRepository;
+
+    @Value("${account.cache.account-user.max-size:100000}")
+    private long maxSize = 100000;
+
+    @Value("${account.cache.account-user.ttl-seconds:600}")
+    private long ttlSeconds = 600;
+
+    private Cache<Long, Boolean> existingUsers;
+
+    @PostConstruct
+    public void init() {
+        existingUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 트랜잭션 안에서 호출해야 함 (캐시 히트 시 돌려주는 proxy 는 id 외의 값을 읽을 때 초기화된다)
+     * */
+    public Optional<AccountUser> findById(Long userId) {
+        if (existingUsers.getIfPresent(userId) != null) {
+            return Optional.of(accountUserRepository.getReferenceById(userId));
+        }
+
+        Optional<AccountUser> accountUser = accountUserRepository.findById(userId);
+        accountUser.ifPresent(user -> existingUsers.put(userId, Boolean.TRUE));
+        return accountUser;
+    }
+
+    public boolean existsById(Long userId) {
+        if (existingUsers.getIfPresent(userId) != null) {
+            return true;
+        }
+
+        boolean exists = accountUserRepository.existsById(userId);
+        if (exists) {
+            existingUsers.put(userId, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    public CacheMetricsResponse stats() {
+        return CacheMetricsResponse.from("accountUser", existingUsers);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.FailedTransactionMetricsResponse;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 실패한 잔액 사용/취소 기록을 요청 밖에서 모아서 저장한다
+ * 1. 요청 쓰레드는 크기가 정해진 큐에 넣기만 하고 바로 에러를 응답한다
+ * 2. 주기마다 큐에 모인 기록의 계좌를 한 번에 조회하고 한 트랜잭션에서 batch insert 한다
+ * 3. 큐가 가득 차면 (계좌번호, 종류, 금액)이 같은 실패를 카운터로만 세고 요약 로그로 남긴다
+ *    (카드 대입 공격처럼 실패가 몰릴 때 DB 부하가 실패 요청 수에 비례하지 않도록)
+ * 없는 계좌의 실패는 저장할 계좌가 없으므로 건수만 센다
+ * 기록의 balanceSnapshot 은 실패한 시점이 아니라 저장(flush)하는 시점의 계좌 잔액이다
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FailedTransactionRecorder {
+    private static final int MAX_SUMMARY_LINES = 20;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${account.failure.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${account.failure.batch-size:500}")
+    private int batchSize = 500;
+
+    // 카운터로 모을 최대 키 수 (넘치면 건수만 센다)
+    @Value("${account.failure.max-aggregated-keys:10000}")
+    private int maxAggregatedKeys = 10000;
+
+    private final Map<FailureKey, LongAdder> aggregated = new ConcurrentHashMap<>();
+    private final LongAdder recordedCount = new LongAdder();
+    private final LongAdder aggregatedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private BlockingQueue<FailedTransaction> queue;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    //종료 전에 큐에 남은 기록을 저장
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    /**
+     * 바깥 트랜잭션 안에서 호출되면 (MAILBOX 모드의 배치 시도) 커밋될 때만 큐에 넣는다
+     * 배치가 롤백되면 AccountMailboxExecutor 가 요청을 한 건씩 트랜잭션 밖에서 다시 실행하므로
+     * 실패는 그 마지막 실행에서 한 번만 기록된다
+     * */
+    public void record(String accountNumber, TransactionType transactionType, Long amount) {
+        FailedTransaction failure = new FailedTransaction(accountNumber, transactionType, amount,
+                LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(failure);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(failure);
+            }
+        });
+    }
+
+    private void enqueue(FailedTransaction failure) {
+        if (queue.offer(failure)) {
+            return;
+        }
+
+        FailureKey key = new FailureKey(failure.accountNumber, failure.transactionType, failure.amount);
+        //증가를 compute 안에서 해야 reportAggregated 가 remove 로 꺼내간 카운터에 더하는 일이 없다
+        LongAdder counter = aggregated.compute(key, (k, current) -> {
+            if (current == null && aggregated.size() >= maxAggregatedKeys) {
+                return null;
+            }
+            LongAdder target = current != null ? current : new LongAdder();
+            target.increment();
+            return target;
+        });
+        if (counter == null) {
+            droppedCount.increment();
+            return;
+        }
+        aggregatedCount.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${account.failure.flush-interval-ms:100}")
+    public int flush() {
+        flushLock.lock();
+        try {
+            int flushed = 0;
+            List<FailedTransaction> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                try {
+                    flushed += write(batch);
+                } catch (RuntimeException e) {
+                    droppedCount.add(batch.size());
+                    log.error("Failed to save {} failed transactions", batch.size(), e);
+                }
+                batch.clear();
+            }
+            reportAggregated();
+            return flushed;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public FailedTransactionMetricsResponse stats() {
+        return FailedTransactionMetricsResponse.builder()
+                .queued(queue.size())
+                .recorded(recordedCount.sum())
+                .aggregated(aggregatedCount.sum())
+                .dropped(droppedCount.sum())
+                .build();
+    }
+
+    private int write(List<FailedTransaction> batch) {
+        Set<String> accountNumbers = batch.stream()
+                .map(failure -> failure.accountNumber)
+                .collect(Collectors.toSet());
+
+        Integer saved = transactionTemplate.execute(status -> {
+            //같은 계좌의 실패가 몰려도 계좌 조회는 배치당 한 번
+            Map<String, Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers).stream()
+                    .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+            List<Transaction> transactions = new ArrayList<>(batch.size());
+            for (FailedTransaction failure : batch) {
+                Account account = accounts.get(failure.accountNumber);
+                if (account == null) {
+                    droppedCount.increment();
+                    continue;
+                }
+                transactions.add(Transaction.builder()
+                        .transactionType(failure.transactionType)
+                        .transactionResultType(TransactionResultType.F)
+                        .account(account)
+                        .amount(failure.amount)
+                        .balanceSnapshot(account.getBalance()) //저장 시점의 잔액
+                        .transactionId(transactionIdGenerator.nextId())
+                        .transactedAt(failure.failedAt)
+                        .build());
+            }
+            transactionRepository.saveAll(transactions);
+            return transactions.size();
+        });
+
+        int count = saved == null ? 0 : saved;
+        recordedCount.add(count);
+        return count;
+    }
+
+    private void reportAggregated() {
+        if (aggregated.isEmpty()) {
+            return;
+        }
+
+        int lines = 0;
+        long others = 0;
+        for (FailureKey key : new ArrayList<>(aggregated.keySet())) {
+            LongAdder counter = aggregated.remove(key);
+            if (counter == null) {
+                continue;
+            }
+            if (lines++ < MAX_SUMMARY_LINES) {
+                log.warn("Aggregated {} failed {} of {} on account {} (recorder queue full)",
+                        counter.sum(), key.transactionType, key.amount, key.accountNumber);
+            } else {
+                others += counter.sum();
+            }
+        }
+        if (others > 0) {
+            log.warn("Aggregated {} more failed transactions (recorder queue full)", others);
+        }
+    }
+
+    private static class FailedTransaction {
+        private final String accountNumber;
+        private final TransactionType transactionType;
+        private final Long amount;
+        private final LocalDateTime failedAt;
+
+        private FailedTransaction(String accountNumber, TransactionType transactionType,
+                                  Long amount, LocalDateTime failedAt) {
+            this.accountNumber = accountNumber;
+            this.transactionType = transactionType;
+            this.amount = amount;
+            this.failedAt = failedAt;
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class FailureKey {
+        private final String accountNumber;
+        private final TransactionType transactionType;
+        private final Long amount;
+    }
+}
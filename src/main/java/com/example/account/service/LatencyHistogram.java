@@ -0,0 +1,83 @@
+package com.example.account.service;
+
+import com.example.account.dto.LockMetricsResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 고정 구간(ms) 히스토그램
+ * 기록은 LongAdder 로만 하므로 lock 경쟁이 심할 때도 기록 자체가 병목이 되지 않는다
+ * 백분위 값은 해당 구간의 상한값으로 근사한다
+ * */
+public class LatencyHistogram {
+    private static final long[] BOUNDS_MILLIS =
+            {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MILLIS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(Math.max(0L, nanos));
+        int index = 0;
+        while (index < BOUNDS_MILLIS.length && millis > BOUNDS_MILLIS[index]) {
+            index++;
+        }
+
+        buckets[index].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public LockMetricsResponse.Histogram snapshot() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        Map<String, Long> bucketCounts = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+            bucketCounts.put(i < BOUNDS_MILLIS.length ? "le_" + BOUNDS_MILLIS[i] : "le_inf", counts[i]);
+        }
+
+        return LockMetricsResponse.Histogram.builder()
+                .count(total)
+                .meanMillis(total == 0 ? 0.0
+                        : totalNanos.sum() / (double) total / TimeUnit.MILLISECONDS.toNanos(1))
+                .maxMillis(TimeUnit.NANOSECONDS.toMillis(maxNanos.get()))
+                .p50Millis(percentile(counts, total, 0.50))
+                .p90Millis(percentile(counts, total, 0.90))
+                .p99Millis(percentile(counts, total, 0.99))
+                .buckets(bucketCounts)
+                .build();
+    }
+
+    private long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0L;
+        }
+
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                //마지막 구간은 상한이 없으므로 관측된 최대값을 사용
+                return i < BOUNDS_MILLIS.length
+                        ? BOUNDS_MILLIS[i] : TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+}
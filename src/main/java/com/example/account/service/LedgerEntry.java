@@ -0,0 +1,26 @@
+package com.example.account.service;
+
+import com.example.account.type.LedgerEntryType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * ledger 의 고정 길이(64byte) 기록 하나
+ * [sequence 8][accountId 8][amount 8][balanceAfter 8][transactionId 8][transactedAt 8][type 1][예약 11][CRC32 4]
+ * */
+@Getter
+@Builder
+@AllArgsConstructor
+public class LedgerEntry {
+    private long sequence;
+    private long accountId;
+    private LedgerEntryType type;
+    private long amount;
+    private long balanceAfter;
+    // OPEN 기록은 거래가 아니므로 null
+    private String transactionId;
+    private LocalDateTime transactedAt;
+}
@@ -1,14 +1,26 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.aop.AccountLockIdInterface;
 
+import com.example.account.aop.LockPolicy;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.*;
+
 @Aspect
 @Component
 @Slf4j
@@ -16,21 +28,144 @@ import org.springframework.stereotype.Component;
 public class LockAopAspect {
 
     private final LockService lockService;
+    private final AccountMailboxExecutor accountMailboxExecutor;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    //AsyncConfig 의 transactionExecutor 가 주입됨
+    private final Executor transactionExecutor;
+
+    @Value("${account.concurrency.mode:REDIS_LOCK}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.REDIS_LOCK;
+
+    //비동기 lock 은 transactionExecutor 큐에서 기다리는 시간도 lease 에 포함되므로, 처리 시작 시 이만큼은 남아있어야 한다
+    @Value("${account.async.min-remaining-lease-ms:2000}")
+    private long minRemainingLeaseMillis = 2000;
+
+    //메소드별 lock 정책은 처음 호출될 때 한 번만 해석해서 저장해둔다
+    private final Map<Method, LockPolicy> lockPolicies = new ConcurrentHashMap<>();
 
     @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
             AccountLockIdInterface request
     ) throws Throwable {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        LockPolicy lockPolicy = getLockPolicy(method);
+        //CompletableFuture 를 돌려주는 메소드는 lock 을 기다리는 동안 쓰레드를 붙잡지 않는다
+        boolean async = CompletionStage.class.isAssignableFrom(method.getReturnType());
+
+        if(concurrencyMode == ConcurrencyMode.MAILBOX){
+            //계좌별 큐에 넣고 worker 가 순서대로 처리 (lock 은 worker 가 배치 단위로 잡는다)
+            CompletableFuture<Object> result = accountMailboxExecutor
+                    .submit(request.getAccountNumber(), lockPolicy, pjp::proceed);
+            if(async){
+                return result.thenCompose(LockAopAspect::toFuture);
+            }
+            try{
+                return result.get();
+            }catch (ExecutionException e){
+                throw e.getCause();
+            }
+        }
+
+        if(!concurrencyMode.usesRedisLock()){
+            //lock 없이 실행 (동시성은 DB 가 보장)
+            AccountTask task = concurrencyMode == ConcurrencyMode.OPTIMISTIC
+                    ? () -> optimisticRetryExecutor.execute(pjp::proceed)
+                    : pjp::proceed;
+            return async ? runOnExecutor(task, () -> { }) : task.run();
+        }
+
+        if(async){
+            return proceedWithAsyncLock(pjp, request.getAccountNumber(), lockPolicy);
+        }
+
         //lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        lockService.lock(request.getAccountNumber(), lockPolicy);
         try{
 
             return pjp.proceed();
 
         }finally {
             // lock 해제
-            lockService.unlock(request.getAccountNumber());
+            lockService.unlock(request.getAccountNumber(), lockPolicy);
+        }
+    }
+
+    private CompletableFuture<Object> proceedWithAsyncLock(
+            ProceedingJoinPoint pjp, String accountNumber, LockPolicy lockPolicy) {
+        return lockService.lockAsync(accountNumber, lockPolicy)
+                .thenCompose(lockOwnerId -> {
+                    long lockedAt = System.nanoTime();
+                    return runOnExecutor(() -> {
+                                checkRemainingLease(accountNumber, lockPolicy, lockedAt);
+                                return pjp.proceed();
+                            },
+                            () -> lockService.unlockAsync(accountNumber, lockPolicy, lockOwnerId));
+                });
+    }
+
+    //큐에서 기다리다 lease 가 거의 끝났다면 처리 도중 다른 노드가 같은 계좌를 잡을 수 있으므로 실패 처리
+    //(lockedAt 은 redis 응답을 받은 시각이라 실제 lease 시작보다 조금 늦다, 그 차이는 남겨두는 lease 가 덮는다)
+    private void checkRemainingLease(String accountNumber, LockPolicy lockPolicy, long lockedAt) {
+        if(lockPolicy.isWatchdog()){
+            return;
+        }
+        long remaining = lockPolicy.getLeaseTime()
+                - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lockedAt);
+        if(remaining < minRemainingLeaseMillis){
+            log.error("Lock lease nearly expired in executor queue for accountNumber: {} ({}ms left)",
+                    accountNumber, remaining);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
         }
     }
+
+    //lock 을 잡은 뒤의 처리만 transactionExecutor 에서 실행하고, 끝나면 afterCompletion 을 호출
+    private CompletableFuture<Object> runOnExecutor(AccountTask task, Runnable afterCompletion) {
+        CompletableFuture<Object> response = new CompletableFuture<>();
+
+        try{
+            transactionExecutor.execute(() -> runAsync(task).whenComplete((result, error) -> {
+                afterCompletion.run();
+                if(error != null){
+                    response.completeExceptionally(unwrap(error));
+                }else {
+                    response.complete(result);
+                }
+            }));
+        }catch (RejectedExecutionException e){
+            log.error("Transaction executor is saturated", e);
+            afterCompletion.run();
+            response.completeExceptionally(
+                    new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        }
+
+        return response;
+    }
+
+    private CompletableFuture<Object> runAsync(AccountTask task) {
+        try{
+            return toFuture(task.run());
+        }catch (Throwable e){
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Object> toFuture(Object result) {
+        return ((CompletionStage<Object>) result).toCompletableFuture();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private LockPolicy getLockPolicy(Method method) {
+        return lockPolicies.computeIfAbsent(method, m -> {
+            AccountLock accountLock = AnnotationUtils.findAnnotation(m, AccountLock.class);
+            LockPolicy lockPolicy = accountLock == null
+                    ? LockPolicy.DEFAULT : LockPolicy.from(accountLock);
+            log.debug("Resolved lock policy for {}: {}", m.getName(), lockPolicy);
+            return lockPolicy;
+        });
+    }
 }
@@ -0,0 +1,134 @@
+package com.example.account.service;
+
+import com.example.account.dto.LockMetricsResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 계좌 lock 경쟁 지표
+ * 1. lock 취득까지 기다린 시간 / lock 을 잡고 있던 시간 히스토그램
+ * 2. 취득 성공, 대기시간 초과, redis 오류, 해제 실패 카운터
+ * 3. 시도 횟수 기준 상위 lock key (ACLK:계좌번호)
+ * */
+@Component
+public class LockMetrics {
+    // 추적하는 key 가 MAX_TRACKED_KEYS 를 넘으면 모든 값을 절반으로 줄이고 시도가 적은 key 부터
+    // LOW_WATER_KEYS 개만 남을 때까지 밀어낸다 (다음 정리까지 새 key 가 2500개 들어와야 하므로 touch 당 비용은 상수)
+    private static final int MAX_TRACKED_KEYS = 10_000;
+    private static final int LOW_WATER_KEYS = 7_500;
+
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder unlockFailures = new LongAdder();
+
+    private final Map<String, AtomicLong> keyAttempts = new ConcurrentHashMap<>();
+
+    // 정리는 한 쓰레드만 하고, 그동안 다른 쓰레드는 기다리지 않고 지나간다
+    private final ReentrantLock decayLock = new ReentrantLock();
+
+    public void recordAcquired(String lockKey, long waitNanos) {
+        acquired.increment();
+        acquireLatency.record(waitNanos);
+        touch(lockKey);
+    }
+
+    public void recordTimeout(String lockKey, long waitNanos) {
+        timeouts.increment();
+        acquireLatency.record(waitNanos);
+        touch(lockKey);
+    }
+
+    public void recordError(String lockKey) {
+        errors.increment();
+        touch(lockKey);
+    }
+
+    public void recordReleased(long holdNanos) {
+        holdTime.record(holdNanos);
+    }
+
+    public void recordUnlockFailure() {
+        unlockFailures.increment();
+    }
+
+    public LockMetricsResponse snapshot(int top) {
+        return LockMetricsResponse.builder()
+                .acquired(acquired.sum())
+                .timeouts(timeouts.sum())
+                .errors(errors.sum())
+                .unlockFailures(unlockFailures.sum())
+                .acquireLatency(acquireLatency.snapshot())
+                .holdTime(holdTime.snapshot())
+                .hotKeys(keyAttempts.entrySet().stream()
+                        .map(entry -> new LockMetricsResponse.HotKey(
+                                entry.getKey(), entry.getValue().get()))
+                        .sorted(Comparator.comparingLong(LockMetricsResponse.HotKey::getAttempts)
+                                .reversed())
+                        .limit(top)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private void touch(String lockKey) {
+        keyAttempts.computeIfAbsent(lockKey, k -> new AtomicLong()).incrementAndGet();
+
+        if (keyAttempts.size() > MAX_TRACKED_KEYS && decayLock.tryLock()) {
+            try {
+                decay();
+            } finally {
+                decayLock.unlock();
+            }
+        }
+    }
+
+    private void decay() {
+        if (keyAttempts.size() <= MAX_TRACKED_KEYS) {
+            return;
+        }
+
+        // 1. 값을 절반으로 줄이면서 크기 구간(2의 지수)별 key 수를 센다
+        int[] buckets = new int[Long.SIZE + 1];
+        for (AtomicLong attempts : keyAttempts.values()) {
+            buckets[bucket(attempts.updateAndGet(count -> count / 2))]++;
+        }
+
+        // 2. 작은 구간부터 더해서 밀어낼 개수에 닿는 구간을 찾는다
+        int toEvict = keyAttempts.size() - LOW_WATER_KEYS;
+        int boundary = 0;
+        int below = 0;
+        while (boundary < Long.SIZE && below + buckets[boundary] < toEvict) {
+            below += buckets[boundary];
+            boundary++;
+        }
+
+        // 3. 그보다 작은 구간은 모두, 그 구간에서는 모자란 만큼만 밀어낸다
+        int fromBoundary = toEvict - below;
+        Iterator<AtomicLong> iterator = keyAttempts.values().iterator();
+        while (iterator.hasNext()) {
+            int bucket = bucket(iterator.next().get());
+            if (bucket < boundary) {
+                iterator.remove();
+            } else if (bucket == boundary && fromBoundary > 0) {
+                iterator.remove();
+                fromBoundary--;
+            }
+        }
+    }
+
+    // 0 -> 0, 1 -> 1, 2~3 -> 2, 4~7 -> 3 ...
+    private static int bucket(long count) {
+        return Long.SIZE - Long.numberOfLeadingZeros(count);
+    }
+}
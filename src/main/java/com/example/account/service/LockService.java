@@ -1,52 +1,306 @@
 package com.example.account.service;
 
+import com.example.account.aop.LockPolicy;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LockWaitType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 //주로 컴포넌트나 서비스나 컨트롤러에 자주 붙는 3종 @세트들
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LockService {
+    // 같은 노드 안의 경쟁은 이 stripe lock 에서 먼저 줄을 세운다 (2의 제곱수로 유지)
+    private static final int LOCAL_LOCK_STRIPES = 1024;
+
     //RedisRepositoryConfig 의  redissonClient()가 주입되게됨 (이름이 같아서 자동으로?)
     private final RedissonClient redissonClient;
+    private final LockMetrics lockMetrics;
+
+    private final LocalLock[] localLocks = createLocalLocks();
+
+    // lock 을 잡은 시각 (hold time 측정용), 같은 계좌는 local lock 으로 한 번에 하나만 잡힌다
+    // 여기에 있으면 local lock 도 잡고 있는 것이므로 unlock 때 local lock 을 풀지 판단하는 데도 쓴다
+    private final Map<String, Long> lockedAt = new ConcurrentHashMap<>();
+
+    // 비동기 lock 은 쓰레드가 아닌 요청 단위로 소유하므로 thread id 와 겹치지 않는 음수 id 를 쓴다
+    private final AtomicLong asyncOwnerSequence = new AtomicLong();
 
     public void lock(String accountNumber){
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        lock(accountNumber, LockPolicy.DEFAULT);
+    }
+
+    public void lock(String accountNumber, LockPolicy lockPolicy){
+        LocalLock localLock = getLocalLock(accountNumber);
+        String lockKey = getLockKey(accountNumber);
         log.debug("Trying lock for accountNumber: {}", accountNumber);  // 디버깅용
 
+        long startedAt = System.nanoTime();
         try{
-            // waitTime: lock 을 취득하는데 기다려보는 시간
-            // leaseTime: lock 이 자동해제되는 시간
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
+            // 1단계: JVM 안에서 먼저 대기 -> 같은 노드의 경쟁자들은 redis 까지 가지 않고 메모리에서 순서를 기다린다
+            if(!localLock.tryAcquire(lockPolicy.getWaitTime())){
+                lockMetrics.recordTimeout(lockKey, System.nanoTime() - startedAt);
+                log.error("============ Local lock acquisition failed ==============");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+
+            // 2단계: stripe 를 잡은 요청만 redis lock 을 시도 (남은 대기시간만큼만 기다림)
+            long remainingWait = Math.max(0L, lockPolicy.getWaitTime()
+                    - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            boolean isLock;
+            try{
+                RLock lock = getRLock(accountNumber, lockPolicy);
+
+                // waitTime: lock 을 취득하는데 기다려보는 시간
+                // leaseTime: lock 이 자동해제되는 시간 (-1 이면 watchdog 이 갱신)
+                isLock = lock.tryLock(remainingWait, lockPolicy.getLeaseTime(), TimeUnit.MILLISECONDS);
+            }catch (Exception e){
+                localLock.release();
+                throw e;
+            }
 
             //명시적으로 unlock를 해주고 있지 않기때문에 lock를 다른 녀석이 획득하려고하면 5초간 계속 실패할 것임
             if(!isLock){ //lock 획득에 실패 시
+                localLock.release();
+                lockMetrics.recordTimeout(lockKey, System.nanoTime() - startedAt);
                 log.error("============ Lock acquisition failed ==============");
                 throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
             }
 
+            long now = System.nanoTime();
+            lockMetrics.recordAcquired(lockKey, now - startedAt);
+            lockedAt.put(lockKey, now);
+
         }catch (AccountException e){
            throw e;
         }catch (Exception e){
+            lockMetrics.recordError(lockKey);
             log.error("Redis lock failed", e);
         }
     }
 
+    /**
+     * 쓰레드를 붙잡지 않고 lock 을 시도한다
+     * 동기 lock 과 같은 stripe 대기열에 줄을 선 뒤 redis lock 을 시도하며,
+     * 결과로 받은 owner id 로 unlockAsync 를 호출해야 한다
+     * */
+    public CompletableFuture<Long> lockAsync(String accountNumber, LockPolicy lockPolicy){
+        LocalLock localLock = getLocalLock(accountNumber);
+        String lockKey = getLockKey(accountNumber);
+        long lockOwnerId = -asyncOwnerSequence.incrementAndGet();
+        long startedAt = System.nanoTime();
+        log.debug("Trying async lock for accountNumber: {}", accountNumber);
+
+        // 1단계: 같은 노드의 경쟁자는 stripe 대기열에서 쓰레드 없이 차례를 기다린다
+        return localLock.acquireAsync(lockPolicy.getWaitTime())
+                .exceptionally(e -> {
+                    lockMetrics.recordTimeout(lockKey, System.nanoTime() - startedAt);
+                    log.error("============ Local lock acquisition failed ==============");
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                })
+                // 2단계: 차례가 온 요청만 남은 대기시간으로 redis lock 을 시도
+                .thenCompose(ignored -> tryLockAsync(accountNumber, lockPolicy, lockOwnerId,
+                        startedAt)
+                        .whenComplete((isLock, e) -> {
+                            if(e != null || !isLock){
+                                localLock.release();
+                            }
+                        }))
+                .thenApply(isLock -> {
+                    long now = System.nanoTime();
+                    if(!isLock){
+                        lockMetrics.recordTimeout(lockKey, now - startedAt);
+                        log.error("============ Lock acquisition failed ==============");
+                        throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                    }
+
+                    lockMetrics.recordAcquired(lockKey, now - startedAt);
+                    lockedAt.put(lockKey, now);
+                    return lockOwnerId;
+                });
+    }
+
+    private CompletableFuture<Boolean> tryLockAsync(String accountNumber, LockPolicy lockPolicy,
+                                                    long lockOwnerId, long startedAt) {
+        long remainingWait = Math.max(0L, lockPolicy.getWaitTime()
+                - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        try{
+            return getRLock(accountNumber, lockPolicy)
+                    .tryLockAsync(remainingWait, lockPolicy.getLeaseTime(),
+                            TimeUnit.MILLISECONDS, lockOwnerId)
+                    .toCompletableFuture();
+        }catch (RuntimeException e){
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Void> unlockAsync(String accountNumber, LockPolicy lockPolicy,
+                                               long lockOwnerId){
+        String lockKey = getLockKey(accountNumber);
+        log.debug("Async unlock for accountNumber: {}", accountNumber);
+        Long acquiredAt = lockedAt.remove(lockKey);
+        if(acquiredAt != null){
+            lockMetrics.recordReleased(System.nanoTime() - acquiredAt);
+        }
+
+        return getRLock(accountNumber, lockPolicy)
+                .unlockAsync(lockOwnerId)
+                .toCompletableFuture()
+                .whenComplete((ignored, e) -> {
+                    // redis 해제가 실패하더라도 같은 노드의 대기자들이 막히지 않도록 local lock 은 항상 넘겨준다
+                    getLocalLock(accountNumber).release();
+                    if(e != null){
+                        lockMetrics.recordUnlockFailure();
+                        log.error("Redis unlock failed", e);
+                    }
+                });
+    }
+
     public void unlock(String accountNumber){
+        unlock(accountNumber, LockPolicy.DEFAULT);
+    }
+
+    public void unlock(String accountNumber, LockPolicy lockPolicy){
         log.debug("Unlock for accountNumber: {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        Long acquiredAt = lockedAt.remove(getLockKey(accountNumber));
+        if(acquiredAt != null){
+            lockMetrics.recordReleased(System.nanoTime() - acquiredAt);
+        }
+
+        try{
+            getRLock(accountNumber, lockPolicy).unlock();
+        }catch (RuntimeException e){
+            lockMetrics.recordUnlockFailure();
+            throw e;
+        }finally {
+            // redis 해제가 실패하더라도 같은 노드의 대기자들이 막히지 않도록 local lock 은 항상 풀어준다
+            // (redis 장애로 lock 없이 진행한 경우에는 local lock 도 이미 풀려 있다)
+            if(acquiredAt != null){
+                getLocalLock(accountNumber).release();
+            }
+        }
     }
 
 
-    private static String getLockKey(String accountNumber) {
+    // lock 을 건 것과 같은 종류의 RLock 으로 풀어야 하므로 lock/unlock 모두 여기서 만든다
+    private RLock getRLock(String accountNumber, LockPolicy lockPolicy) {
+        String lockKey = getLockKey(accountNumber);
+
+        if(lockPolicy.isFair()){
+            return redissonClient.getFairLock(lockKey);
+        }
+        if(lockPolicy.getWaitType() == LockWaitType.SPIN){
+            return redissonClient.getSpinLock(lockKey);
+        }
+        return redissonClient.getLock(lockKey);
+    }
+
+    static String getLockKey(String accountNumber) {
         return "ACLK:" + accountNumber;
     }
+
+    private LocalLock getLocalLock(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return localLocks[(hash ^ (hash >>> 16)) & (LOCAL_LOCK_STRIPES - 1)];
+    }
+
+    private static LocalLock[] createLocalLocks() {
+        LocalLock[] locks = new LocalLock[LOCAL_LOCK_STRIPES];
+        for (int i = 0; i < LOCAL_LOCK_STRIPES; i++) {
+            locks[i] = new LocalLock();
+        }
+        return locks;
+    }
+
+    /**
+     * 같은 노드 안의 stripe 대기열 (FIFO)
+     * 쓰레드가 아닌 요청이 소유하므로 동기 lock 과 비동기 lock 이 같은 대기열에 줄을 서고,
+     * release 하면 다음 대기자의 future 를 완료시켜 차례를 넘긴다
+     * */
+    static final class LocalLock {
+        private final ReentrantLock guard = new ReentrantLock();
+        private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private boolean held;
+
+        boolean tryAcquire(long waitTime) throws InterruptedException {
+            CompletableFuture<Void> turn = enqueue();
+            try{
+                turn.get(waitTime, TimeUnit.MILLISECONDS);
+                return true;
+            }catch (TimeoutException e){
+                abandon(turn);
+                return false;
+            }catch (InterruptedException e){
+                abandon(turn);
+                throw e;
+            }catch (ExecutionException e){
+                // 대기자의 future 는 차례가 넘어와서 완료되거나 포기해서 취소될 뿐이다
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // 대기시간이 지나면 TimeoutException 으로 완료되고, 그 뒤에 넘어오는 차례는 다음 대기자에게 간다
+        CompletableFuture<Void> acquireAsync(long waitTime) {
+            return enqueue().orTimeout(waitTime, TimeUnit.MILLISECONDS);
+        }
+
+        void release() {
+            while (true) {
+                CompletableFuture<Void> next;
+                guard.lock();
+                try{
+                    next = waiters.poll();
+                    if(next == null){
+                        held = false;
+                        return;
+                    }
+                }finally {
+                    guard.unlock();
+                }
+
+                // 이미 포기한 대기자는 건너뛴다 (완료는 guard 밖에서 해서 다음 단계가 guard 를 잡지 않게 한다)
+                if(next.complete(null)){
+                    return;
+                }
+            }
+        }
+
+        private CompletableFuture<Void> enqueue() {
+            guard.lock();
+            try{
+                if(!held){
+                    held = true;
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> turn = new CompletableFuture<>();
+                waiters.add(turn);
+                return turn;
+            }finally {
+                guard.unlock();
+            }
+        }
+
+        // 포기하는 사이에 차례가 넘어왔다면 받은 차례를 다음 대기자에게 넘긴다
+        private void abandon(CompletableFuture<Void> turn) {
+            if(!turn.cancel(false)){
+                release();
+            }
+        }
+    }
 }
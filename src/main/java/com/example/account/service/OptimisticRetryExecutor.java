@@ -0,0 +1,46 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * OPTIMISTIC 모드에서 Account @Version 충돌이 나면 작업 전체(트랜잭션 포함)를 다시 실행한다
+ * 재시도 간격은 지수적으로 늘리고 jitter 를 섞어서 같은 계좌로 몰린 요청들이 다시 부딪히지 않도록 한다
+ * */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+    @Value("${account.optimistic.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${account.optimistic.initial-backoff-ms:5}")
+    private long initialBackoffMillis;
+
+    @Value("${account.optimistic.max-backoff-ms:100}")
+    private long maxBackoffMillis;
+
+    public Object execute(AccountTask task) throws Throwable {
+        long backoff = initialBackoffMillis;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return task.run();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Optimistic lock retries exhausted after {} attempts", attempt);
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+
+                log.debug("Optimistic lock conflict, retry {} after {}ms", attempt, backoff);
+                Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+}
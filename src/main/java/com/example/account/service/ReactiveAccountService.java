@@ -0,0 +1,117 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.ReactiveAccountRepository;
+import com.example.account.repository.ReactiveAccountUserRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * reactive 배포용 계좌 생성/해지/조회 (검증은 AccountService 와 같은 AccountRules)
+ * */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveAccountService {
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveAccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountBalanceCache accountBalanceCache;
+    private final TransactionalOperator reactiveTransactionalOperator;
+
+    public Mono<AccountDto> createAccount(Long userId, Long initialBalance){
+        return getAccountUser(userId)
+                .flatMap(accountUser -> accountUserRepository
+                        .incrementAccountCount(userId, AccountRules.MAX_ACCOUNT_PER_USER)
+                        .flatMap(updated -> updated == 0
+                                ? Mono.error(new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10))
+                                : nextAccountNumber())
+                        .flatMap(accountNumber -> {
+                            LocalDateTime now = LocalDateTime.now();
+                            Account account = Account.builder()
+                                    .accountUser(accountUser)
+                                    .accountStatus(AccountStatus.IN_USE)
+                                    .accountNumber(accountNumber)
+                                    .balance(initialBalance)
+                                    .registeredAt(now)
+                                    .build();
+
+                            return accountRepository.insert(account, now).thenReturn(account);
+                        }))
+                .as(reactiveTransactionalOperator::transactional)
+                .map(account -> {
+                    accountBalanceCache.invalidateAfterCommit(userId);
+                    return AccountDto.fromEntity(account);
+                });
+    }
+
+    public Mono<AccountDto> deleteAccount(Long userId, String accountNumber){
+        return getAccountUser(userId)
+                .then(accountRepository.findByAccountNumber(accountNumber)
+                        .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND))))
+                .flatMap(account -> {
+                    AccountRules.validateDeleteAccount(userId, account, account.getBalance());
+
+                    LocalDateTime now = LocalDateTime.now();
+                    return accountRepository.unregister(account.getId(), now)
+                            .flatMap(updated -> updated == 0
+                                    ? Mono.error(new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED))
+                                    : accountUserRepository.decrementAccountCount(userId))
+                            .then(Mono.fromSupplier(() -> {
+                                account.setAccountStatus(AccountStatus.UNREGISTERED);
+                                account.setUnRegisteredAt(now);
+                                return account;
+                            }));
+                })
+                .as(reactiveTransactionalOperator::transactional)
+                .map(account -> {
+                    accountBalanceCache.invalidateAfterCommit(userId);
+                    return AccountDto.fromEntity(account);
+                });
+    }
+
+    public Mono<Account> getAccount(Long id){
+        return accountRepository.findWithAccountUserById(id)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)));
+    }
+
+    //잔액이 바뀔 때마다 무효화되는 near-cache 를 먼저 확인, 결과가 없을 때만 사용자 존재 여부를 확인한다
+    public Mono<List<AccountInfo>> getAccountByUserId(Long userId){
+        return accountBalanceCache.getReactive(userId,
+                accountRepository.findAccountInfosByUserId(userId)
+                        .collectList()
+                        .flatMap(accountInfos -> accountInfos.isEmpty()
+                                ? getAccountUser(userId).thenReturn(accountInfos)
+                                : Mono.just(accountInfos)));
+    }
+
+    private Mono<AccountUser> getAccountUser(Long userId) {
+        return accountUserRepository.existsById(userId)
+                .filter(Boolean::booleanValue)
+                .map(exists -> {
+                    AccountUser accountUser = new AccountUser();
+                    accountUser.setId(userId);
+                    return accountUser;
+                })
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.USER_NOT_FOUND)));
+    }
+
+    //블록을 다 썼을 때만 저장소(redis/DB)에 다녀오므로 그때 event loop 를 막지 않도록 boundedElastic 에서 발급
+    private Mono<String> nextAccountNumber() {
+        return Mono.fromCallable(accountNumberAllocator::nextAccountNumber)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LockWaitType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLockReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * reactive 배포용 계좌 lock (RLockReactive)
+ * LockService 와 같은 "ACLK:" key 를 쓰므로 servlet 노드와 섞여 있어도 같은 계좌는 한 곳에서만 처리된다
+ * 요청 단위로 owner id 를 발급하고 기다리는 동안 event loop 쓰레드를 붙잡지 않는다
+ * */
+@Slf4j
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveLockService {
+    private final RedissonReactiveClient redissonReactiveClient;
+    private final LockMetrics lockMetrics;
+
+    // thread id(양수), LockService 의 비동기 owner id(-1 부터 감소)와 겹치지 않도록 Long.MIN_VALUE 부터 증가
+    private final AtomicLong lockOwnerSequence = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * lock 을 잡은 뒤에 action 을 구독하고, 성공/실패/취소 어느 경우든 끝나면 lock 을 푼다
+     * */
+    public <T> Mono<T> executeWithLock(String accountNumber, LockPolicy lockPolicy, Mono<T> action){
+        return Mono.usingWhen(
+                lock(accountNumber, lockPolicy),
+                heldLock -> action,
+                heldLock -> unlock(accountNumber, lockPolicy, heldLock)
+        );
+    }
+
+    private Mono<HeldLock> lock(String accountNumber, LockPolicy lockPolicy){
+        return Mono.defer(() -> {
+            String lockKey = LockService.getLockKey(accountNumber);
+            long lockOwnerId = lockOwnerSequence.getAndIncrement();
+            long startedAt = System.nanoTime();
+            log.debug("Trying reactive lock for accountNumber: {}", accountNumber);
+
+            return getRLock(accountNumber, lockPolicy)
+                    .tryLock(lockPolicy.getWaitTime(), lockPolicy.getLeaseTime(),
+                            TimeUnit.MILLISECONDS, lockOwnerId)
+                    .flatMap(isLock -> {
+                        long now = System.nanoTime();
+                        if(!isLock){
+                            lockMetrics.recordTimeout(lockKey, now - startedAt);
+                            log.error("============ Lock acquisition failed ==============");
+                            return Mono.error(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+                        }
+
+                        lockMetrics.recordAcquired(lockKey, now - startedAt);
+                        return Mono.just(new HeldLock(lockOwnerId, now));
+                    });
+        });
+    }
+
+    //unlock 실패는 응답에 섞지 않고 기록만 한다 (lease 가 지나면 redis 에서 풀린다)
+    private Mono<Void> unlock(String accountNumber, LockPolicy lockPolicy, HeldLock heldLock){
+        return Mono.defer(() -> {
+            log.debug("Reactive unlock for accountNumber: {}", accountNumber);
+            lockMetrics.recordReleased(System.nanoTime() - heldLock.acquiredAt);
+
+            return getRLock(accountNumber, lockPolicy)
+                    .unlock(heldLock.lockOwnerId)
+                    .onErrorResume(e -> {
+                        lockMetrics.recordUnlockFailure();
+                        log.error("Redis unlock failed", e);
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    // LockService.getRLock 과 같은 규칙으로 lock 종류를 고른다
+    private RLockReactive getRLock(String accountNumber, LockPolicy lockPolicy) {
+        String lockKey = LockService.getLockKey(accountNumber);
+
+        if(lockPolicy.isFair()){
+            return redissonReactiveClient.getFairLock(lockKey);
+        }
+        if(lockPolicy.getWaitType() == LockWaitType.SPIN){
+            return redissonReactiveClient.getSpinLock(lockKey);
+        }
+        return redissonReactiveClient.getLock(lockKey);
+    }
+
+    private static class HeldLock {
+        private final long lockOwnerId;
+        private final long acquiredAt;
+
+        private HeldLock(long lockOwnerId, long acquiredAt) {
+            this.lockOwnerId = lockOwnerId;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.ReactiveAccountRepository;
+import com.example.account.repository.ReactiveAccountUserRepository;
+import com.example.account.repository.ReactiveTransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+import java.time.LocalDateTime;
+
+/**
+ * reactive 배포용 잔액 사용/취소/거래 확인
+ * 검증은 TransactionService 와 같은 AccountRules 로 하고, 잔액 변경과 거래 기록은 하나의 r2dbc 트랜잭션으로 묶는다
+ * (계좌 lock 은 ReactiveTransactionController 가 ReactiveLockService 로 잡는다)
+ * journal/ledger 모드는 지원하지 않으므로 거래는 항상 transaction 테이블에 바로 저장된다
+ * */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveTransactionService {
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveAccountUserRepository accountUserRepository;
+    private final ReactiveTransactionRepository transactionRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountBalanceCache accountBalanceCache;
+    private final TransactionalOperator reactiveTransactionalOperator;
+
+    /**
+     * 사용자가 없는 경우,계좌가 없는 경우, 사용자 아이디와 계좌 소유주가 다른 경우,
+     *       계좌가 이미 해지 상태인 경우, 거래금액이 잔액보다 큰 경우 실패 응답
+     * */
+    public Mono<TransactionDto> useBalance(Long userId, String accountNumber, Long amount){
+        return checkAccountUser(userId)
+                .then(getAccount(accountNumber))
+                .flatMap(account -> {
+                    AccountRules.validateUseBalance(userId, account, amount);
+
+                    LocalDateTime now = LocalDateTime.now();
+                    return accountRepository.debit(account.getId(), amount, now)
+                            .flatMap(updated -> {
+                                // lock 을 잡고 검증했는데도 차감되지 않았다면 그 사이에 다른 요청이 잔액을 바꾼 것
+                                if(updated == 0){
+                                    return Mono.error(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+                                }
+                                account.useBalance(amount);
+                                return saveTransaction(TransactionType.USE, amount, account, now);
+                            });
+                })
+                .as(reactiveTransactionalOperator::transactional)
+                //transactional 의 결과는 커밋이 끝난 뒤에 나온다
+                .doOnNext(transaction -> accountBalanceCache.invalidateAfterCommit(userId));
+    }
+
+    public Mono<TransactionDto> cancelBalance(String transactionId, String accountNumber, Long amount){
+        return getTransaction(transactionId)
+                .flatMap(transaction -> getAccount(accountNumber)
+                        .flatMap(account -> {
+                            AccountRules.validateCancelBalance(transaction, account, amount);
+
+                            LocalDateTime now = LocalDateTime.now();
+                            return accountRepository.credit(account.getId(), amount, now)
+                                    .then(Mono.defer(() -> {
+                                        account.cancelBalance(amount);
+                                        return saveTransaction(TransactionType.CANCEL, amount, account, now);
+                                    }))
+                                    .map(canceled -> Tuples.of(account.getAccountUser().getId(), canceled));
+                        }))
+                .as(reactiveTransactionalOperator::transactional)
+                .map(ownerAndTransaction -> {
+                    accountBalanceCache.invalidateAfterCommit(ownerAndTransaction.getT1());
+                    return ownerAndTransaction.getT2();
+                });
+    }
+
+    public Mono<TransactionDto> queryTransaction(String transactionId){
+        return getTransaction(transactionId);
+    }
+
+    private Mono<Void> checkAccountUser(Long userId) {
+        return accountUserRepository.existsById(userId)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.USER_NOT_FOUND)))
+                .then();
+    }
+
+    private Mono<Account> getAccount(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)));
+    }
+
+    private Mono<TransactionDto> getTransaction(String transactionId) {
+        return transactionRepository.findByTransactionId(transactionId)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+    }
+
+    private Mono<TransactionDto> saveTransaction(TransactionType transactionType, Long amount,
+                                                 Account account, LocalDateTime now) {
+        TransactionDto transaction = TransactionDto.builder()
+                .accountNumber(account.getAccountNumber())
+                .transactionType(transactionType)
+                .transactionResultType(TransactionResultType.S)
+                .amount(amount)
+                .balanceSnapshot(account.getBalance())
+                .transactionId(transactionIdGenerator.nextId())
+                .transactedAt(now)
+                .build();
+
+        return transactionRepository.insert(account.getId(), transaction)
+                .thenReturn(transaction);
+    }
+}
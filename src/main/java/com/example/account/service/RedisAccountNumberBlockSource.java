@@ -0,0 +1,40 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+//여러 노드가 같은 redis 카운터를 blockSize 만큼씩 올려가며 구간을 나눠 갖는다
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.number.source", havingValue = "redis", matchIfMissing = true)
+public class RedisAccountNumberBlockSource implements AccountNumberBlockSource {
+    private static final String COUNTER_KEY = "ACNO:SEQ";
+
+    // 카운터를 올리고, 올리기 전 값이 floor 보다 작으면(처음 쓰는 키, 지워진 키 등) floor 부터의 구간으로 바꾼다
+    // 스크립트 하나로 실행되므로 두 노드가 같은 구간을 받거나 다른 노드의 예약을 되돌릴 수 없다
+    private static final String RESERVE_SCRIPT =
+            "local size = tonumber(ARGV[1]) " +
+            "local reserved = redis.call('incrby', KEYS[1], size) " +
+            "if reserved - size < tonumber(ARGV[2]) then " +
+            "  reserved = tonumber(ARGV[2]) + size " +
+            "  redis.call('set', KEYS[1], reserved) " +
+            "end " +
+            "return reserved";
+
+    private final RedissonClient redissonClient;
+
+    @Override
+    public long reserve(int blockSize, long floor) {
+        Long reserved = redissonClient.getScript(StringCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, RESERVE_SCRIPT, RScript.ReturnType.INTEGER,
+                        Collections.singletonList(COUNTER_KEY),
+                        String.valueOf(blockSize), String.valueOf(floor));
+        return reserved - blockSize;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.account.service;
+
+/**
+ * redis 키로 잡는 임대(SnowflakeTransactionIdGenerator 의 노드 번호, AccountLedgerOwner 의 ledger 소유권)용 script
+ * 아직 내 임대일 때만 TTL 을 늘리고 / 지운다 (만료 후 다른 노드가 가져간 키는 건드리지 않는다)
+ * KEYS[1]: 임대 키, ARGV[1]: 임대 표시, ARGV[2]: TTL (RELEASE 는 사용하지 않음)
+ * */
+final class RedisLeaseScripts {
+    static final String RENEW =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "end " +
+            "return 0";
+    static final String RELEASE =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('del', KEYS[1]) " +
+            "end " +
+            "return 0";
+
+    private RedisLeaseScripts() {
+    }
+}
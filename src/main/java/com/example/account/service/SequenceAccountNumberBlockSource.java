@@ -0,0 +1,34 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+//DB 시퀀스 값 하나가 블록 하나를 뜻함 (시퀀스 1 -> [0, blockSize), 2 -> [blockSize, 2*blockSize) ...)
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.number.source", havingValue = "sequence")
+public class SequenceAccountNumberBlockSource implements AccountNumberBlockSource {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long reserve(int blockSize, long floor) {
+        Long blockNumber = jdbcTemplate.queryForObject(
+                "select next value for account_number_seq", Long.class);
+        long start = (blockNumber - 1) * blockSize;
+        if (start >= floor) {
+            return start;
+        }
+
+        //기존 계좌보다 뒤처져 있으면 모자란 블록 수만큼 시퀀스를 한 번에 넘긴다
+        //(restart 는 다른 노드가 이미 받은 값으로 되돌릴 수 있으므로 next value 만 사용)
+        long behind = (floor - start + blockSize - 1) / blockSize;
+        blockNumber = Collections.max(jdbcTemplate.queryForList(
+                "select next value for account_number_seq from system_range(1, ?)",
+                Long.class, behind));
+        return (blockNumber - 1) * blockSize;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionIdConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake 방식의 64bit 거래 id
+ * [41bit 밀리초 (2024-01-01 기준)][10bit 노드][12bit 순번]
+ * 같은 노드 안에서는 항상 증가하고, 시계가 뒤로 가거나 1ms 안에 4096개를 넘기면
+ * 시간을 조금 앞당겨 쓰는 방식으로 기다리지 않고 발급한다
+ * 노드 번호는 redis 의 TXID:NODE:<번호> 키를 TTL 로 임대해서 살아있는 노드끼리 겹치지 않게 한다
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    // 빈 번호를 찾기 시작할 위치만 나눠주는 카운터 (노드들이 모두 0번부터 찾지 않도록)
+    private static final String NODE_COUNTER_KEY = "TXID:NODE";
+    private static final String NODE_LEASE_KEY_PREFIX = "TXID:NODE:";
+
+    private final RedissonClient redissonClient;
+
+    //-1 이면 기동할 때 redis 에서 비어있는 노드 번호를 임대한다
+    @Value("${account.transaction-id.node-id:-1}")
+    private volatile long nodeId = -1;
+
+    //임대 TTL, 갱신은 lease-renew-ms 마다 (TTL 보다 충분히 짧아야 redis 가 잠깐 느려도 임대를 잃지 않는다)
+    @Value("${account.transaction-id.lease-ttl-ms:30000}")
+    private long leaseTtlMillis = 30000;
+
+    // 이 인스턴스의 임대 표시 (재기동한 같은 호스트와도 구분되도록 매번 새로 만든다)
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    private volatile boolean leased;
+
+    // (경과 밀리초 << SEQUENCE_BITS) | 순번 을 한 값으로 들고 CAS 로 갱신
+    private final AtomicLong lastState = new AtomicLong();
+
+    @PostConstruct
+    public void assignNodeId() {
+        if (nodeId < 0) {
+            nodeId = leaseNodeId();
+            leased = true;
+        }
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("account.transaction-id.node-id must be <= " + MAX_NODE_ID);
+        }
+        log.info("Transaction id node: {}", nodeId);
+    }
+
+    //살아있는 노드가 1024개를 넘으면 id 가 겹칠 수 있으므로 기동을 실패시킨다
+    private long leaseNodeId() {
+        long start = redissonClient.getAtomicLong(NODE_COUNTER_KEY).getAndIncrement();
+        for (long i = 0; i <= MAX_NODE_ID; i++) {
+            long candidate = (start + i) & MAX_NODE_ID;
+            if (redissonClient.<String>getBucket(NODE_LEASE_KEY_PREFIX + candidate, StringCodec.INSTANCE)
+                    .setIfAbsent(leaseOwner, Duration.ofMillis(leaseTtlMillis))) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free transaction id node (all " + (MAX_NODE_ID + 1) + " leased)");
+    }
+
+    @Scheduled(fixedDelayString = "${account.transaction-id.lease-renew-ms:10000}")
+    public void renewLease() {
+        if (!leased) {
+            return;
+        }
+
+        long renewed = runLeaseScript(RedisLeaseScripts.RENEW);
+        if (renewed == 0) {
+            //redis 장애 등으로 TTL 이 지나 임대를 잃었다면 다른 노드가 같은 번호를 쓰고 있을 수 있으므로 새로 임대
+            long lost = nodeId;
+            nodeId = leaseNodeId();
+            log.warn("Transaction id node lease {} was lost, moved to {}", lost, nodeId);
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        if (leased) {
+            runLeaseScript(RedisLeaseScripts.RELEASE);
+        }
+    }
+
+    private long runLeaseScript(String script) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, script, RScript.ReturnType.INTEGER,
+                        Collections.singletonList(NODE_LEASE_KEY_PREFIX + nodeId),
+                        leaseOwner, String.valueOf(leaseTtlMillis));
+        return result;
+    }
+
+    @Override
+    public String nextId() {
+        return TransactionIdConverter.format(nextLongId());
+    }
+
+    long nextLongId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long state = lastState.updateAndGet(last -> Math.max(now, last + 1));
+
+        long elapsedMillis = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        return (elapsedMillis << (NODE_BITS + SEQUENCE_BITS))
+                | (nodeId << SEQUENCE_BITS)
+                | sequence;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.account.dto.CacheMetricsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.TypedJsonJacksonCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래는 한 번 저장되면 바뀌지 않으므로 TransactionDto 를 2단계로 캐시한다
+ * 1단계: JVM 안의 Caffeine (W-TinyLFU, 크기 제한)
+ * 2단계: redis (노드끼리 공유, TTL)
+ * 저장할 때 커밋 이후에 채워두므로 거래 상태 조회는 DB 까지 가지 않는다
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionCache {
+    private static final String KEY_PREFIX = "TXN:";
+
+    private final RedissonClient redissonClient;
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${account.cache.transaction.local-max-size:10000}")
+    private long localMaxSize = 10000;
+
+    @Value("${account.cache.transaction.redis-ttl-seconds:86400}")
+    private long redisTtlSeconds = 86400;
+
+    private Cache<String, TransactionDto> localCache;
+    private Codec codec;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .recordStats()
+                .build();
+        codec = new TypedJsonJacksonCodec(TransactionDto.class, objectMapper);
+    }
+
+    /**
+     * 로컬 -> redis -> DB 순서로 찾는다 (같은 id 를 동시에 찾으면 한 번만 읽는다)
+     * 없는 거래는 캐시하지 않는다
+     * */
+    public Optional<TransactionDto> get(String transactionId) {
+        return Optional.ofNullable(localCache.get(transactionId, this::load));
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤에 캐시에 넣는다 (롤백된 거래가 조회되지 않도록)
+     * */
+    public void putAfterCommit(TransactionDto transactionDto) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(transactionDto);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(transactionDto);
+            }
+        });
+    }
+
+    public CacheMetricsResponse stats() {
+        return CacheMetricsResponse.from("transaction", localCache);
+    }
+
+    private TransactionDto load(String transactionId) {
+        TransactionDto cached = getFromRedis(transactionId);
+        if (cached != null) {
+            return cached;
+        }
+
+        TransactionDto loaded = transactionRepository.findDtoByTransactionId(transactionId)
+                .orElse(null);
+        if (loaded != null) {
+            putToRedis(loaded);
+        }
+        return loaded;
+    }
+
+    private void put(TransactionDto transactionDto) {
+        localCache.put(transactionDto.getTransactionId(), transactionDto);
+        putToRedis(transactionDto);
+    }
+
+    //redis 장애는 캐시 미스로 취급하고 DB 로 넘어간다
+    private TransactionDto getFromRedis(String transactionId) {
+        try {
+            return getBucket(transactionId).get();
+        } catch (RuntimeException e) {
+            log.warn("Failed to read transaction {} from redis", transactionId, e);
+            return null;
+        }
+    }
+
+    private void putToRedis(TransactionDto transactionDto) {
+        try {
+            getBucket(transactionDto.getTransactionId())
+                    .setAsync(transactionDto, redisTtlSeconds, TimeUnit.SECONDS)
+                    .toCompletableFuture()
+                    .whenComplete((ignored, e) -> {
+                        if (e != null) {
+                            log.warn("Failed to cache transaction {} in redis",
+                                    transactionDto.getTransactionId(), e);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            log.warn("Failed to cache transaction {} in redis", transactionDto.getTransactionId(), e);
+        }
+    }
+
+    private RBucket<TransactionDto> getBucket(String transactionId) {
+        return redissonClient.getBucket(KEY_PREFIX + transactionId, codec);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.account.service;
+
+import com.example.account.type.ExportFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * CLI 로 거래 내역을 파일로 내보내고 종료한다
+ * java -jar account.jar --account.export.output=/data/transactions.ndjson.gz
+ *      [--account.export.from=2024-01-01T00:00:00 --account.export.to=2024-01-02T00:00:00]
+ *      [--account.export.format=CSV --account.export.account-number=1000000000]
+ * 기간을 주지 않으면 어제 하루치, 파일명이 .gz 로 끝나면 gzip 으로 쓴다
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.export.output")
+public class TransactionExportRunner implements ApplicationRunner {
+    private final TransactionExportService transactionExportService;
+    private final ConfigurableApplicationContext applicationContext;
+
+    @Value("${account.export.output}")
+    private String output;
+
+    @Value("${account.export.from:#{null}}")
+    private LocalDateTime from;
+
+    @Value("${account.export.to:#{null}}")
+    private LocalDateTime to;
+
+    @Value("${account.export.format:NDJSON}")
+    private ExportFormat format;
+
+    @Value("${account.export.account-number:#{null}}")
+    private String accountNumber;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        LocalDateTime exportFrom = from != null ? from : today.minusDays(1);
+        LocalDateTime exportTo = to != null ? to : today;
+        Path path = Paths.get(output);
+
+        int exitCode = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            long count = transactionExportService.export(format, exportFrom, exportTo,
+                    accountNumber, output.endsWith(".gz"), out);
+            log.info("Wrote {} transactions to {}", count, path.toAbsolutePath());
+        } catch (Exception e) {
+            log.error("Transaction export failed", e);
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import jakarta.transaction.Transactional;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 거래 내역 전체 내보내기 (HTTP, CLI 공용)
+ * DB cursor 로 한 건씩 읽어서 바로 출력하므로 건수와 상관없이 메모리 사용량이 일정하다
+ * (projection 으로 읽기 때문에 영속성 컨텍스트에도 쌓이지 않는다)
+ * */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+    private static final String CSV_HEADER =
+            "transactionId,accountNumber,transactionType,transactionResult,amount,balanceSnapshot,transactedAt";
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    public void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+
+    /**
+     * [from, to) 구간의 거래를 format 으로 out 에 쓰고 건수를 돌려준다
+     * out 은 닫지 않는다 (gzip 이면 gzip 스트림만 마무리)
+     * */
+    @Transactional
+    public long export(ExportFormat format, LocalDateTime from, LocalDateTime to,
+                       String accountNumber, boolean gzip, OutputStream out) throws IOException {
+        validateRange(from, to);
+
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzip ? gzipOut : out, StandardCharsets.UTF_8), 64 * 1024);
+
+        long count;
+        try (Stream<TransactionDto> rows = transactionRepository.streamForExport(from, to, accountNumber)) {
+            count = format == ExportFormat.CSV
+                    ? writeCsv(rows.iterator(), writer)
+                    : writeNdjson(rows.iterator(), writer);
+        }
+
+        writer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        log.info("Exported {} transactions [{}, {}) as {}", count, from, to, format);
+        return count;
+    }
+
+    private long writeNdjson(Iterator<TransactionDto> rows, Writer writer) throws IOException {
+        ObjectWriter jsonWriter = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long count = 0;
+        while (rows.hasNext()) {
+            jsonWriter.writeValue(writer, rows.next());
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<TransactionDto> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        while (rows.hasNext()) {
+            TransactionDto row = rows.next();
+            writer.write(csv(row.getTransactionId()));
+            writer.write(',');
+            writer.write(csv(row.getAccountNumber()));
+            writer.write(',');
+            writer.write(csv(row.getTransactionType()));
+            writer.write(',');
+            writer.write(csv(row.getTransactionResultType()));
+            writer.write(',');
+            writer.write(csv(row.getAmount()));
+            writer.write(',');
+            writer.write(csv(row.getBalanceSnapshot()));
+            writer.write(',');
+            writer.write(csv(row.getTransactedAt()));
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    //쉼표, 따옴표, 줄바꿈이 들어간 값만 따옴표로 감싼다
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0
+                && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 거래 내역 keyset 페이지의 위치 (마지막으로 본 거래의 transactedAt, id)
+ * 클라이언트에는 의미를 알 수 없는 문자열로 내보낸다
+ * */
+@Getter
+@AllArgsConstructor
+public class TransactionHistoryCursor {
+    private final LocalDateTime transactedAt;
+    private final Long id;
+
+    public String encode() {
+        String raw = transactedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionHistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new TransactionHistoryCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.account.service;
+
+/**
+ * 거래 id 발급기, 발급한 id 는 TransactionIdConverter 로 BIGINT 컬럼에 저장된다
+ * */
+public interface TransactionIdGenerator {
+    String nextId();
+}
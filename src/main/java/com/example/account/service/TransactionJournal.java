@@ -0,0 +1,420 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 거래 기록용 로컬 append-only 로그 (write-behind)
+ * 1. 요청 쓰레드는 DB 커밋 전에 기록을 큐에 넣고, journal 쓰레드가 모인 기록을 한 번에 쓰고 fsync 한 번으로 확정한다
+ * 2. 커밋된 기록은 TransactionJournalFlusher 가 모아서 transaction 테이블에 batch insert 하고
+ *    어디까지 DB 에 썼는지 checkpoint 파일에 남긴다 (아직 DB 에 쓰지 않은 기록은 넘지 않는다)
+ * 3. 기동 시 checkpoint 이후의 기록을 다시 읽어서 DB 에 쓴다
+ *    (커밋 여부는 잔액 변경과 같은 트랜잭션에 남긴 transaction_commit 표시로 가린다)
+ * 기록 형식: [payload 길이 4byte][CRC32 4byte][payload], 끝이 잘린 기록은 복구 시 잘라낸다
+ * */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.journal.enabled", havingValue = "true")
+public class TransactionJournal {
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final Comparator<Position> POSITION_ORDER =
+            Comparator.comparingLong(Position::getSegment).thenComparingLong(Position::getOffset);
+
+    @Value("${account.journal.dir:journal}")
+    private String dir = "journal";
+
+    @Value("${account.journal.segment-bytes:67108864}")
+    private long segmentBytes = 64L * 1024 * 1024;
+
+    @Value("${account.journal.max-group-size:1000}")
+    private int maxGroupSize = 1000;
+
+    private final BlockingQueue<PendingAppend> appends = new LinkedBlockingQueue<>();
+
+    // fsync 와 커밋이 끝났지만 아직 DB 에 쓰이지 않은 기록 (커밋된 순서)
+    private final BlockingQueue<Entry> unflushed = new LinkedBlockingQueue<>();
+
+    // journal 에 썼지만 아직 DB 에 쓰지 않은 모든 기록 (커밋 대기 포함, 시작 위치 순)
+    // checkpoint 는 이 중 가장 앞의 기록을 넘지 않는다
+    private final ConcurrentSkipListMap<Position, Entry> outstanding = new ConcurrentSkipListMap<>(POSITION_ORDER);
+
+    private Path directory;
+    private FileChannel channel;
+    private long segment;
+    private long position;
+    private Position checkpointed;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+
+        Position checkpoint = readCheckpoint();
+        checkpointed = checkpoint;
+        List<Long> segments = listSegments();
+        for (long s : segments) {
+            if (s < checkpoint.getSegment()) {
+                Files.deleteIfExists(segmentPath(s));
+            } else {
+                recover(s, s == checkpoint.getSegment() ? checkpoint.getOffset() : 0L);
+            }
+        }
+        if (!unflushed.isEmpty()) {
+            log.warn("Replaying {} journaled transactions not yet written to DB", unflushed.size());
+        }
+
+        //기존 segment 에는 더 쓰지 않고 항상 새 segment 로 시작
+        long last = segments.isEmpty() ? 0L : segments.get(segments.size() - 1);
+        openSegment(Math.max(last, checkpoint.getSegment()) + 1);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "transaction-journal");
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        if (writer != null) {
+            writer.join();
+        }
+        //종료 중에 들어온 기록은 쓰지 못했으므로 실패로 돌려준다
+        PendingAppend pending;
+        while ((pending = appends.poll()) != null) {
+            pending.done.completeExceptionally(new IllegalStateException("Transaction journal is stopped"));
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * DB 커밋 전에 journal 에 쓰고 fsync 될 때까지 기다린다 (실패하면 예외로 DB 트랜잭션도 롤백된다)
+     * 커밋되면 DB 에 쓸 대상이 되고, 롤백되면 버린다
+     * 커밋 직후에 죽어서 결과를 모르는 기록은 재기동 때 transaction_commit 표시로 가린다
+     * */
+    public void appendBeforeCommit(Transaction transaction) {
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        PendingAppend pending = enqueue(TransactionJournalRecord.from(transaction), inTransaction);
+        try {
+            pending.done.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException(
+                    "Failed to journal transaction " + transaction.getTransactionId(), e.getCause());
+        }
+        if (!inTransaction) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    outstanding.remove(pending.entry.getStart());
+                } else {
+                    unflushed.add(pending.entry);
+                }
+            }
+        });
+    }
+
+    /**
+     * 트랜잭션 없이 기록만 남긴다 (테스트용)
+     * transaction_commit 표시를 남기지 않으므로 TransactionJournalFlusher 는 이 기록을 롤백된 것으로 보고 건너뛴다,
+     * 거래 기록은 appendBeforeCommit 으로만 남긴다
+     * */
+    CompletableFuture<Void> append(TransactionJournalRecord record) {
+        return enqueue(record, false).done;
+    }
+
+    // 커밋된 기록 중 아직 DB 에 쓰지 않은 것을 max 개까지 꺼낸다
+    public List<Entry> drain(int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, unflushed.size()));
+        unflushed.drainTo(entries, max);
+        return entries;
+    }
+
+    public int getUnflushedCount() {
+        return unflushed.size();
+    }
+
+    /**
+     * flushed 가 DB 에 쓰였음을 기록하고, 아직 DB 에 쓰지 않은 가장 앞의 기록 전까지 checkpoint 를 옮긴 뒤
+     * 그 앞의 segment 파일을 지운다
+     * 임시 파일에 쓰고 fsync 한 뒤 rename 하므로 checkpoint 는 항상 온전한 값이다
+     * */
+    public void checkpoint(List<Entry> flushed) throws IOException {
+        Position position = checkpointed;
+        for (Entry entry : flushed) {
+            outstanding.remove(entry.getStart());
+            if (POSITION_ORDER.compare(entry.getPosition(), position) > 0) {
+                position = entry.getPosition();
+            }
+        }
+        Map.Entry<Position, Entry> first = outstanding.firstEntry();
+        if (first != null && POSITION_ORDER.compare(first.getKey(), position) < 0) {
+            position = first.getKey();
+        }
+        if (POSITION_ORDER.compare(position, checkpointed) <= 0) {
+            return;
+        }
+
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap((position.getSegment() + " " + position.getOffset())
+                    .getBytes(StandardCharsets.US_ASCII)));
+            out.force(true);
+        }
+        Files.move(tmp, directory.resolve(CHECKPOINT_FILE), REPLACE_EXISTING, ATOMIC_MOVE);
+
+        for (long s = checkpointed.getSegment(); s < position.getSegment(); s++) {
+            Files.deleteIfExists(segmentPath(s));
+        }
+        checkpointed = position;
+    }
+
+    private PendingAppend enqueue(TransactionJournalRecord record, boolean awaitingCommit) {
+        //인코딩과 CRC 계산은 요청 쓰레드에서 해서 journal 쓰레드는 쓰기만 한다
+        PendingAppend pending = new PendingAppend(record, record.encode(), awaitingCommit);
+        if (!running) {
+            pending.done.completeExceptionally(new IllegalStateException("Transaction journal is not running"));
+            return pending;
+        }
+        appends.add(pending);
+        return pending;
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>(maxGroupSize);
+        while (running || !appends.isEmpty()) {
+            try {
+                PendingAppend first = appends.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                //기다리는 동안 쌓인 기록을 한 번에 쓰고 fsync 도 한 번만 한다
+                group.add(first);
+                appends.drainTo(group, maxGroupSize - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void writeGroup(List<PendingAppend> group) {
+        int size = 0;
+        for (PendingAppend pending : group) {
+            size += HEADER_BYTES + pending.payload.length;
+        }
+
+        long startPosition = position;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        List<Entry> entries = new ArrayList<>(group.size());
+        long end = position;
+        for (PendingAppend pending : group) {
+            buffer.putInt(pending.payload.length).putInt(pending.crc).put(pending.payload);
+            Position start = new Position(segment, end);
+            end += HEADER_BYTES + pending.payload.length;
+            pending.entry = new Entry(pending.record, start, new Position(segment, end));
+            if (!pending.awaitingCommit) {
+                entries.add(pending.entry);
+            }
+        }
+        buffer.flip();
+
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            log.error("Journal write failed", e);
+            rollback(startPosition);
+            group.forEach(pending -> pending.done.completeExceptionally(e));
+            return;
+        }
+
+        position = end;
+        //segment 를 넘긴 뒤에 완료를 알려야 호출자가 보는 segment 상태가 항상 같다
+        if (position >= segmentBytes) {
+            try {
+                openSegment(segment + 1);
+            } catch (IOException e) {
+                log.error("Journal segment roll over failed", e);
+            }
+        }
+
+        group.forEach(pending -> outstanding.put(pending.entry.getStart(), pending.entry));
+        unflushed.addAll(entries);
+        group.forEach(pending -> pending.done.complete(null));
+    }
+
+    //일부만 쓰인 기록이 남지 않도록 그룹을 쓰기 전 위치로 되돌린다
+    private void rollback(long startPosition) {
+        try {
+            channel.truncate(startPosition);
+            channel.position(startPosition);
+        } catch (IOException e) {
+            log.error("Journal rollback failed, torn tail will be cut on recovery", e);
+        }
+    }
+
+    private void openSegment(long next) throws IOException {
+        FileChannel opened = FileChannel.open(segmentPath(next), CREATE_NEW, WRITE);
+        //새 파일이 디렉토리에 남도록 첫 fsync 는 metadata 까지
+        opened.force(true);
+        if (channel != null) {
+            channel.close();
+        }
+        channel = opened;
+        segment = next;
+        position = 0L;
+    }
+
+    private void recover(long s, long offset) throws IOException {
+        Path path = segmentPath(s);
+        try (FileChannel in = FileChannel.open(path, READ, WRITE)) {
+            long size = in.size();
+            long at = offset;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+            while (at + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(in, header, at);
+                int length = header.getInt(0);
+                int crc = header.getInt(4);
+                if (length <= 0 || length > MAX_RECORD_BYTES || at + HEADER_BYTES + length > size) {
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                readFully(in, ByteBuffer.wrap(payload), at + HEADER_BYTES);
+                if (crc(payload) != crc) {
+                    break;
+                }
+
+                Entry entry = new Entry(TransactionJournalRecord.decode(payload),
+                        new Position(s, at), new Position(s, at + HEADER_BYTES + length));
+                at += HEADER_BYTES + length;
+                outstanding.put(entry.getStart(), entry);
+                unflushed.add(entry);
+            }
+
+            if (at < size) {
+                log.warn("Truncating torn journal tail of {} at {} ({} bytes)", path, at, size - at);
+                in.truncate(at);
+                in.force(true);
+            }
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long from) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, from + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private Position readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return new Position(0L, 0L);
+        }
+        String[] values = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim().split(" ");
+        return new Position(Long.parseLong(values[0]), Long.parseLong(values[1]));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long s) {
+        return directory.resolve(String.format("%020d%s", s, SEGMENT_SUFFIX));
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // segment 번호와 그 안의 byte offset (기록의 끝 위치)
+    @Getter
+    @RequiredArgsConstructor
+    public static class Position {
+        private final long segment;
+        private final long offset;
+    }
+
+    // start: 기록의 시작 위치, position: 기록의 끝 위치
+    @Getter
+    @RequiredArgsConstructor
+    public static class Entry {
+        private final TransactionJournalRecord record;
+        private final Position start;
+        private final Position position;
+    }
+
+    private static class PendingAppend {
+        private final TransactionJournalRecord record;
+        private final byte[] payload;
+        private final int crc;
+        private final boolean awaitingCommit;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // journal 쓰레드가 done 을 완료하기 전에 채운다
+        private Entry entry;
+
+        private PendingAppend(TransactionJournalRecord record, byte[] payload, boolean awaitingCommit) {
+            this.record = record;
+            this.payload = payload;
+            this.crc = crc(payload);
+            this.awaitingCommit = awaitingCommit;
+        }
+    }
+}
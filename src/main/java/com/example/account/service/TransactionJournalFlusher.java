@@ -0,0 +1,112 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * journal 에 확정된 거래를 모아서 transaction 테이블에 batch insert 한다
+ * 한 배치가 DB 에 들어가면 journal checkpoint 를 옮긴다
+ * transaction_commit 표시가 있는 기록만 insert 하고 같은 트랜잭션에서 표시를 지우므로,
+ * 롤백된 거래는 들어가지 않고 insert 후 checkpoint 전에 죽어도 재처리 때 중복되지 않는다
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.journal.enabled", havingValue = "true")
+public class TransactionJournalFlusher {
+    private final TransactionJournal transactionJournal;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${account.journal.flush-batch-size:1000}")
+    private int batchSize = 1000;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // DB 쓰기에 실패한 배치는 순서를 지키기 위해 다음 주기에 그대로 다시 시도한다
+    private List<TransactionJournal.Entry> retry = Collections.emptyList();
+
+    @Scheduled(fixedDelayString = "${account.journal.flush-interval-ms:200}")
+    public int flush() {
+        flushLock.lock();
+        try {
+            int flushed = 0;
+            while (true) {
+                List<TransactionJournal.Entry> batch = retry.isEmpty()
+                        ? transactionJournal.drain(batchSize) : retry;
+                if (batch.isEmpty()) {
+                    return flushed;
+                }
+
+                try {
+                    write(batch);
+                    transactionJournal.checkpoint(batch);
+                } catch (RuntimeException | IOException e) {
+                    log.error("Failed to flush {} journaled transactions, will retry", batch.size(), e);
+                    retry = batch;
+                    return flushed;
+                }
+
+                retry = Collections.emptyList();
+                flushed += batch.size();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //종료 전에 남은 기록을 한 번 더 비운다 (남아도 다음 기동 시 journal 에서 재처리됨)
+    @PreDestroy
+    public void stop() {
+        int flushed = flush();
+        log.info("Flushed {} journaled transactions on shutdown", flushed);
+    }
+
+    private void write(List<TransactionJournal.Entry> batch) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Set<Long> committed = new HashSet<>(transactionRepository.findCommittedTransactionIds(
+                    batch.stream()
+                            .map(entry -> TransactionIdConverter.parse(entry.getRecord().getTransactionId()))
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList())));
+
+            //계좌는 id 참조만 걸어서 insert (계좌 select 없음, hibernate jdbc batch 로 묶임)
+            List<Transaction> transactions = batch.stream()
+                    .map(TransactionJournal.Entry::getRecord)
+                    .filter(record -> committed.contains(TransactionIdConverter.parse(record.getTransactionId())))
+                    .map(record -> record.toTransaction(
+                            accountRepository.getReferenceById(record.getAccountId())))
+                    .collect(Collectors.toList());
+            transactionRepository.saveAll(transactions);
+            if (!committed.isEmpty()) {
+                transactionRepository.deleteCommitMarks(committed);
+            }
+
+            if (transactions.size() < batch.size()) {
+                log.info("Skipped {} journaled transactions rolled back or already in DB",
+                        batch.size() - transactions.size());
+            }
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.*;
+import java.time.LocalDateTime;
+
+/**
+ * journal 에 한 줄로 쓰이는 거래 기록
+ * 계좌는 id 로만 들고 있다가 DB 에 쓸 때 참조(proxy)로 바꾼다
+ * */
+@Getter
+@Builder
+@AllArgsConstructor
+public class TransactionJournalRecord {
+    private String transactionId;
+    private Long accountId;
+    private String accountNumber;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+
+    public static TransactionJournalRecord from(Transaction transaction) {
+        return TransactionJournalRecord.builder()
+                .transactionId(transaction.getTransactionId())
+                .accountId(transaction.getAccount().getId())
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+
+    public Transaction toTransaction(Account account) {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .account(account)
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactedAt(transactedAt)
+                .build();
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(transactionId);
+            out.writeLong(accountId);
+            out.writeUTF(accountNumber);
+            out.writeUTF(transactionType.name());
+            out.writeUTF(transactionResultType.name());
+            out.writeLong(amount);
+            out.writeLong(balanceSnapshot);
+            out.writeUTF(transactedAt.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static TransactionJournalRecord decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return TransactionJournalRecord.builder()
+                    .transactionId(in.readUTF())
+                    .accountId(in.readLong())
+                    .accountNumber(in.readUTF())
+                    .transactionType(TransactionType.valueOf(in.readUTF()))
+                    .transactionResultType(TransactionResultType.valueOf(in.readUTF()))
+                    .amount(in.readLong())
+                    .balanceSnapshot(in.readLong())
+                    .transactedAt(LocalDateTime.parse(in.readUTF()))
+                    .build();
+        }
+    }
+}
@@ -3,31 +3,56 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdConverter;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.TransactionHistoryItem;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
-import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final TransactionRepository transactionRepository;
-    private final AccountUserRepository accountUserRepository;
+    private final AccountUserCache accountUserCache;
     private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionCache transactionCache;
+    private final AccountBalanceCache accountBalanceCache;
+
+    @Value("${account.concurrency.mode:REDIS_LOCK}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.REDIS_LOCK;
+
+    //account.journal.enabled=true 일 때만 주입됨 (없으면 요청 안에서 바로 insert)
+    @Autowired(required = false)
+    private TransactionJournal transactionJournal;
+
+    //account.ledger.enabled=true 일 때만 주입됨: 잔액의 원본은 ledger, 테이블은 AccountLedgerProjector 가 따라 쓴다
+    @Autowired(required = false)
+    private AccountLedger accountLedger;
 
     /**
      * 사용자가 없는 경우,계좌가 없는 경우, 사용자 아이디와 계좌 소유주가 다른 경우,
@@ -38,14 +63,21 @@ public class TransactionService {
     @Transactional
     public TransactionDto useBalance(Long userId, String accountNumber,
                                       Long amount){
-        AccountUser user = accountUserRepository.findById(userId)
+        if(accountLedger != null){
+            return useBalanceOnLedger(userId, accountNumber, amount);
+        }
+        if(concurrencyMode == ConcurrencyMode.ATOMIC){
+            return useBalanceAtomically(userId, accountNumber, amount);
+        }
+
+        AccountUser user = accountUserCache.findById(userId)
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                        .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Account account = getAccountForUpdate(accountNumber);
 
-        validateUseBalance(user, account, amount);
+        AccountRules.validateUseBalance(user.getId(), account, amount);
 
         account.useBalance(amount);
+        accountBalanceCache.invalidateAfterCommit(user.getId());
 
         // Account 엔티티로 옮긴 부분
 //        Long accountBalance = account.getBalance();
@@ -56,50 +88,108 @@ public class TransactionService {
 
     }
 
-    private void validateUseBalance(AccountUser user, Account account, Long amount) {
-        if(!Objects.equals(user.getId(), account.getAccountUser().getId())){ //조금 더 null 에 대해서 안전한 비교방법
-            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
-        }
+    /**
+     * ATOMIC 모드: 조건부 UPDATE 한 문장으로 차감하고, 변경된 row 가 없을 때만
+     * 사용자/계좌를 읽어서 어떤 이유로 실패했는지 찾아낸다
+     * */
+    private TransactionDto useBalanceAtomically(Long userId, String accountNumber, Long amount) {
+        int updated = accountRepository.debit(accountNumber, userId, amount,
+                AccountStatus.IN_USE, LocalDateTime.now());
 
-        if(account.getAccountStatus() != AccountStatus.IN_USE){
-            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        if(updated == 0){
+            throw resolveDebitFailure(userId, accountNumber, amount);
         }
 
-        if(account.getBalance() < amount){
-            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
-        }
-    }
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        accountBalanceCache.invalidateAfterCommit(userId);
 
+        return TransactionDto.fromEntity(saveAndGetTransaction(TransactionType.USE,TransactionResultType.S ,amount, account));
+    }
 
-    @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
+    /**
+     * ledger 모드: 소유주/상태는 계좌 테이블로 확인하고, 잔액 확인과 차감은 ledger 에 기록 한 건을 쓰는 것으로 끝낸다
+     * (계좌 update, 거래 insert 는 AccountLedgerProjector 가 모아서 한다)
+     * */
+    private TransactionDto useBalanceOnLedger(Long userId, String accountNumber, Long amount) {
+        AccountUser user = accountUserCache.findById(userId)
+                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
+        AccountRules.validateAccountInUse(user.getId(), account);
+
+        LedgerEntry entry = accountLedger.debit(account, amount, transactionIdGenerator.nextId());
+        return cacheLedgerTransaction(account, entry);
+    }
 
-        saveAndGetTransaction(TransactionType.USE,TransactionResultType.F, amount, account);
+    private TransactionDto cacheLedgerTransaction(Account account, LedgerEntry entry) {
+        TransactionDto transactionDto = TransactionDto.builder()
+                .accountNumber(account.getAccountNumber())
+                .transactionType(TransactionType.valueOf(entry.getType().name()))
+                .transactionResultType(TransactionResultType.S)
+                .amount(entry.getAmount())
+                .balanceSnapshot(entry.getBalanceAfter())
+                .transactionId(entry.getTransactionId())
+                .transactedAt(entry.getTransactedAt())
+                .build();
+
+        //테이블에 반영되기 전에도 조회/취소가 되도록 캐시에 넣어둔다
+        transactionCache.putAfterCommit(transactionDto);
+        return transactionDto;
+    }
 
+    private AccountException resolveDebitFailure(Long userId, String accountNumber, Long amount) {
+        AccountUser user = accountUserCache.findById(userId)
+                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
+        AccountRules.validateUseBalance(user.getId(), account, amount);
 
+        // 다시 읽어보니 조건을 만족한다면 그 사이에 다른 요청이 잔액을 바꾼 것
+        return new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
     }
 
+    // PESSIMISTIC 모드에서는 트랜잭션이 끝날 때까지 계좌 row 를 잠근 채로 읽는다
+    private Account getAccountForUpdate(String accountNumber) {
+        Optional<Account> account = concurrencyMode == ConcurrencyMode.PESSIMISTIC
+                ? accountRepository.findByAccountNumberForUpdate(accountNumber)
+                : accountRepository.findByAccountNumber(accountNumber);
+
+        return account.orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
 
     private Transaction saveAndGetTransaction(
             TransactionType transactionType,
                     TransactionResultType transactionResultType,
                     Long amount,
                     Account account) {
-        return transactionRepository.save(
-                Transaction.builder()
+        Transaction transaction = Transaction.builder()
                         .transactionType(transactionType)
                         .transactionResultType(transactionResultType)  //check
                         .account(account)
                         .amount(amount)
                         .balanceSnapshot(account.getBalance())
-                        .transactionId(java.util.UUID.randomUUID().toString().replace("-",""))
+                        .transactionId(transactionIdGenerator.nextId())
                         .transactedAt(LocalDateTime.now())
-                        .build()
-        );
+                        .build();
+
+        if(transactionJournal != null){
+            //커밋 전에 journal 에 fsync 하고 잔액 변경과 같은 트랜잭션에 커밋 표시를 남긴다
+            //(둘이 함께 커밋되므로 커밋된 차감의 기록은 항상 journal 에 있다, DB insert 는 TransactionJournalFlusher 가 모아서 한다)
+            //커밋 표시도 요청마다 insert 한 번이지만, 커밋/fsync 는 잔액 update 와 같이 한 번이고
+            //bigint pk 하나뿐이라 unique/조회 index 가 여러 개 걸린 거래 row 보다 가볍다
+            //(표시 없이는 재기동 때 커밋되지 않은 차감의 기록을 가려낼 수 없다)
+            transactionJournal.appendBeforeCommit(transaction);
+            transactionRepository.markCommitted(TransactionIdConverter.parse(transaction.getTransactionId()));
+        }else {
+            transaction = transactionRepository.save(transaction);
+        }
+
+        //거래는 바뀌지 않으므로 커밋되면 바로 캐시에 넣어둔다 (조회/취소 시 DB 를 거치지 않음)
+        transactionCache.putAfterCommit(TransactionDto.fromEntity(transaction));
+        return transaction;
     }
 
     @Transactional
@@ -108,48 +198,68 @@ public class TransactionService {
             String accountNumber,
             Long amount
     ) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+        TransactionDto transaction = transactionCache.get(transactionId)
                 .orElseThrow(()-> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Account account = getAccountForUpdate(accountNumber);
+
+        AccountRules.validateCancelBalance(transaction, account, amount);
 
-        validateCancelBalance(transaction, account, amount);
+        if(accountLedger != null){
+            return cacheLedgerTransaction(account,
+                    accountLedger.credit(account, amount, transactionIdGenerator.nextId()));
+        }
 
-        account.cancelBalance(amount);
+        if(concurrencyMode == ConcurrencyMode.ATOMIC){
+            accountRepository.credit(account.getId(), amount, LocalDateTime.now());
+            //UPDATE 후 영속성 컨텍스트가 비워졌으므로 반영된 잔액을 다시 읽는다
+            account = accountRepository.findById(account.getId())
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        }else {
+            account.cancelBalance(amount);
+        }
+        accountBalanceCache.invalidateAfterCommit(account.getAccountUser().getId());
 
         return TransactionDto.fromEntity(saveAndGetTransaction(TransactionType.CANCEL,TransactionResultType.S ,amount, account));
 
     }
 
-    private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
-        if(!Objects.equals(transaction.getAccount().getId(), account.getId())){
-            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
-        }
-        if(!Objects.equals(transaction.getAmount(), amount)){
-            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
-        }
-        if(transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))){
-            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
-        }
+    public TransactionDto queryTransaction(String transactionId) {
+        return transactionCache.get(transactionId)
+                .orElseThrow(()-> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
     }
 
-    @Transactional
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+    /**
+     * 계좌의 거래 내역을 최신순으로 size 건씩 조회 (keyset pagination)
+     * cursor 는 이전 페이지 응답의 nextCursor, 첫 페이지는 null
+     * */
+    public TransactionHistory getTransactionHistory(String accountNumber, String cursor, int size,
+                                                    TransactionType type,
+                                                    TransactionResultType result) {
+        TransactionHistoryCursor position = cursor == null ? null : TransactionHistoryCursor.decode(cursor);
+        Long accountId = accountRepository.findIdByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        //한 건 더 읽어서 다음 페이지가 있는지 확인 (count 쿼리 없음)
+        Pageable limit = PageRequest.of(0, pageSize + 1);
 
-        saveAndGetTransaction(TransactionType.CANCEL,TransactionResultType.F, amount, account);
-    }
+        List<TransactionHistoryItem> items = position == null
+                ? transactionRepository.findHistory(accountId, type, result, limit)
+                : transactionRepository.findHistoryBefore(accountId,
+                        position.getTransactedAt(), position.getId(), type, result, limit);
 
-    public TransactionDto queryTransaction(String transactionId) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(()-> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            TransactionHistoryItem last = items.get(pageSize - 1);
+            nextCursor = new TransactionHistoryCursor(last.getTransactedAt(), last.getId()).encode();
+        }
 
-        return TransactionDto.fromEntity(
-                transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(()-> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+        return TransactionHistory.builder()
+                .accountNumber(accountNumber)
+                .transactions(items)
+                .nextCursor(nextCursor)
+                .build();
     }
 }
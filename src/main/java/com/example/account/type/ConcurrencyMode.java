@@ -0,0 +1,15 @@
+package com.example.account.type;
+
+public enum ConcurrencyMode {
+    REDIS_LOCK, //요청마다 redis 분산 lock 을 잡고 처리 (기본값)
+    MAILBOX,    //계좌별 큐에 쌓아두고 worker 하나가 순서대로 묶어서 처리
+    OPTIMISTIC, //lock 없이 Account @Version 으로 충돌을 감지하고 재시도
+    PESSIMISTIC, //redis 없이 트랜잭션 안에서 계좌 row 를 SELECT ... FOR UPDATE 로 잠금
+    ATOMIC,     //lock 없이 조건부 UPDATE 한 문장으로 잔액을 변경 (변경된 row 수로 성공 판단)
+    ;
+
+    //@AccountLock 에서 redis lock 을 잡아야 하는 모드인지
+    public boolean usesRedisLock() {
+        return this == REDIS_LOCK || this == MAILBOX;
+    }
+}
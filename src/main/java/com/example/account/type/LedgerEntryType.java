@@ -0,0 +1,6 @@
+package com.example.account.type;
+
+// OPEN 은 ledger 가 처음 보는 계좌의 시작 잔액 (DB 의 잔액을 가져옴)
+public enum LedgerEntryType {
+    OPEN, USE, CANCEL
+}
@@ -0,0 +1,6 @@
+package com.example.account.type;
+
+public enum LockWaitType {
+    PUB_SUB, //redis 채널에서 해제 알림을 받을 때까지 대기
+    SPIN     //짧은 간격으로 계속 다시 시도 (pub/sub 연결을 쓰지 않음)
+}
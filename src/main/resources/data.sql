@@ -1,8 +0,0 @@
-insert into account_user(id, name, created_at, updated_at)
-values(1,'You',now(),now());
-
-insert into account_user(id, name, created_at, updated_at)
-values(2,'Kim',now(),now());
-
-insert into account_user(id, name, created_at, updated_at)
-values(3,'Park',now(),now());
\ No newline at end of file
@@ -0,0 +1,54 @@
+-- 엔티티와 같은 구조의 초기 스키마 (hibernate ddl-auto 는 validate 로만 사용)
+
+-- data 로 넣는 사용자 id(1~3)와 겹치지 않도록 100 부터 발급
+create sequence hibernate_sequence start with 100 increment by 1;
+
+-- 계좌번호 블록 발급용 (account.number.source=sequence)
+create sequence account_number_seq start with 1 increment by 1;
+
+create table account_user (
+    id            bigint       not null,
+    created_at    timestamp,
+    updated_at    timestamp,
+    name          varchar(255),
+    account_count integer      not null default 0,
+    primary key (id)
+);
+
+create table account (
+    id               bigint not null,
+    created_at       timestamp,
+    updated_at       timestamp,
+    account_number   varchar(255),
+    account_status   varchar(255),
+    balance          bigint,
+    registered_at    timestamp,
+    un_registered_at timestamp,
+    version          bigint,
+    account_user_id  bigint,
+    primary key (id),
+    constraint fk_account_account_user foreign key (account_user_id) references account_user (id)
+);
+
+create table transaction (
+    id                      bigint not null,
+    created_at              timestamp,
+    updated_at              timestamp,
+    transaction_type        varchar(255),
+    transaction_result_type varchar(255),
+    amount                  bigint,
+    balance_snapshot        bigint,
+    transaction_id          varchar(255),
+    transacted_at           timestamp,
+    account_id              bigint,
+    primary key (id),
+    constraint fk_transaction_account foreign key (account_id) references account (id)
+);
+
+-- 매 거래/조회마다 쓰이는 조회 조건들
+create unique index ux_account_account_number on account (account_number);
+create unique index ux_transaction_transaction_id on transaction (transaction_id);
+-- 계좌별 거래 내역 (최신순 조회)
+create index ix_transaction_account_id_transacted_at on transaction (account_id, transacted_at);
+-- 사용자별 계좌 목록
+create index ix_account_account_user_id on account (account_user_id);
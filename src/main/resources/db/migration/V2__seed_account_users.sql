@@ -0,0 +1,8 @@
+insert into account_user(id, name, account_count, created_at, updated_at)
+values(1,'You',0,now(),now());
+
+insert into account_user(id, name, account_count, created_at, updated_at)
+values(2,'Kim',0,now(),now());
+
+insert into account_user(id, name, account_count, created_at, updated_at)
+values(3,'Park',0,now(),now());
@@ -0,0 +1,14 @@
+-- 거래 id 를 시간순 64bit 숫자로 저장 (외부에는 13자리 문자열로 보여줌)
+-- 컬럼 타입을 바로 바꾸면 기존 UUID(32자리) 거래 id 가 숫자로 바뀌지 않아 실패하므로 새 컬럼으로 옮긴다
+alter table transaction add column transaction_id_bigint bigint;
+alter table transaction add column legacy_transaction_id varchar(32);
+
+-- 기존 거래: 예전 id 는 legacy_transaction_id 에 남겨서 예전 id 로도 조회/취소할 수 있게 하고,
+-- 새 id 는 row 의 id 를 그대로 쓴다 (시간 부분이 2024-01-01 00:00:00.000 인 값이라 새로 발급되는 id 와 겹치지 않고 항상 더 작다)
+update transaction set legacy_transaction_id = transaction_id, transaction_id_bigint = id;
+
+drop index ux_transaction_transaction_id;
+alter table transaction drop column transaction_id;
+alter table transaction alter column transaction_id_bigint rename to transaction_id;
+create unique index ux_transaction_transaction_id on transaction (transaction_id);
+create unique index ux_transaction_legacy_transaction_id on transaction (legacy_transaction_id);
@@ -0,0 +1,3 @@
+-- 계좌별 거래 내역을 (transacted_at, id) keyset 으로 읽을 수 있도록 id 까지 포함
+drop index ix_transaction_account_id_transacted_at;
+create index ix_transaction_account_id_transacted_at_id on transaction (account_id, transacted_at, id);
@@ -0,0 +1,12 @@
+-- 엔티티별 sequence (BaseEntity 의 pooled-lo generator, increment 는 increment_size 와 같은 50)
+-- 하나의 hibernate_sequence 를 모든 insert 가 번갈아 호출하던 것을 없앤다
+create sequence account_user_seq start with 1 increment by 50;
+create sequence account_seq start with 1 increment by 50;
+create sequence transaction_seq start with 1 increment by 50;
+
+-- 이미 발급된 id 와 겹치지 않도록 테이블별 최대 id 다음부터 발급
+alter sequence account_user_seq restart with (select coalesce(max(id), 0) + 1 from account_user);
+alter sequence account_seq restart with (select coalesce(max(id), 0) + 1 from account);
+alter sequence transaction_seq restart with (select coalesce(max(id), 0) + 1 from transaction);
+
+drop sequence hibernate_sequence;
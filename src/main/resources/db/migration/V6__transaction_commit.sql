@@ -0,0 +1,6 @@
+-- journal 모드: 잔액 변경과 같은 DB 트랜잭션으로 남기는 커밋 표시 (거래 id 만)
+-- journal 에는 커밋 전에 쓰므로, DB 에 이 표시가 있는 기록만 transaction 테이블로 옮기고 옮기면서 지운다
+create table transaction_commit (
+    transaction_id bigint not null,
+    primary key (transaction_id)
+);
@@ -3,6 +3,7 @@ package com.example.account.controller;
 
 import com.example.account.domain.Account;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
 import com.example.account.exception.AccountException;
@@ -75,21 +76,21 @@ class AccountControllerTest {
     void successGetAccountsByUserId() throws Exception {
         //given
 
-        List<AccountDto> accountDtos =
+        List<AccountInfo> accountInfos =
                 Arrays.asList(
-                        AccountDto.builder()
+                        AccountInfo.builder()
                                 .accountNumber("1234567890")
                                 .balance(1000L).build(),
-                        AccountDto.builder()
+                        AccountInfo.builder()
                                 .accountNumber("1111111111")
                                 .balance(2000L).build(),
-                        AccountDto.builder()
+                        AccountInfo.builder()
                                 .accountNumber("2222222222")
                                 .balance(3000L).build()
                 );
 
         given(accountService.getAccountByUserId(anyLong()))
-                .willReturn(accountDtos);
+                .willReturn(accountInfos);
         //when (method)
         //then (assertEquals)
         mockMvc.perform(get("/account?user_id=1"))
@@ -0,0 +1,110 @@
+package com.example.account.controller;
+
+import com.example.account.aop.LockPolicy;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.ReactiveLockService;
+import com.example.account.service.ReactiveTransactionService;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@WebFluxTest(ReactiveTransactionController.class)
+@ActiveProfiles("reactive")
+class ReactiveTransactionControllerTest {
+    @MockBean
+    private ReactiveTransactionService transactionService;
+
+    @MockBean
+    private ReactiveLockService lockService;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        //lock 은 바로 잡힌 것으로 보고 action 을 그대로 실행
+        given(lockService.executeWithLock(anyString(), any(LockPolicy.class), any()))
+                .willAnswer(invocation -> invocation.getArgument(2));
+    }
+
+    @Test
+    void successUseBalance() {
+        //given (parameter)
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(Mono.just(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactedAt(LocalDateTime.now())
+                        .amount(12345L)
+                        .transactionId("transactionId")
+                        .transactionResultType(TransactionResultType.S)
+                        .build()));
+
+        //when (method)
+        //then (assertEquals)
+        webTestClient.post().uri("/transaction/use")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UseBalance.Request(1L, "2000000000", 3000L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accountNumber").isEqualTo("1000000000")
+                .jsonPath("$.transactionResult").isEqualTo("S")
+                .jsonPath("$.transactionId").isEqualTo("transactionId")
+                .jsonPath("$.amount").isEqualTo(12345);
+    }
+
+    @Test
+    void failUseBalanceIsRecorded() {
+        //given (parameter)
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(Mono.error(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE)));
+
+        //when (method)
+        //then (assertEquals)
+        webTestClient.post().uri("/transaction/use")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UseBalance.Request(1L, "2000000000", 3000L))
+                .exchange()
+                .expectBody()
+                .jsonPath("$.errorCode").isEqualTo("AMOUNT_EXCEED_BALANCE");
+
+        verify(failedTransactionRecorder).record("2000000000", TransactionType.USE, 3000L);
+    }
+
+    @Test
+    void invalidRequestIsRejected() {
+        //given (parameter)
+        //when (method)
+        //then (assertEquals)
+        webTestClient.post().uri("/transaction/use")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UseBalance.Request(1L, "200", 3000L))
+                .exchange()
+                .expectBody()
+                .jsonPath("$.errorCode").isEqualTo("INVALID_REQUEST");
+
+        verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+    }
+}
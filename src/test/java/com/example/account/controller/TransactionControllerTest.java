@@ -2,8 +2,15 @@ package com.example.account.controller;
 
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.TransactionHistoryItem;
 import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.TransactionExportService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 
@@ -14,16 +21,26 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Collections;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verify;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
@@ -31,6 +48,12 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionExportService transactionExportService;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -52,13 +75,16 @@ class TransactionControllerTest {
 
      //when (method)
      //then (assertEquals)
-        mockMvc.perform(post("/transaction/use")
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(
                        new UseBalance.Request(1L, "2000000000",3000L)
 
                 ))
-        ).andDo(print())
+        ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult)).andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accountNumber").value("1000000000"))
                 .andExpect(jsonPath("$.transactionResult").value("S"))
@@ -68,6 +94,24 @@ class TransactionControllerTest {
      }
 
 
+    @Test
+    void failUseBalanceIsRecordedAsync() throws Exception {
+        //given (parameter)
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        //when (method)
+        //then (assertEquals)
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "2000000000", 3000L))))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("AMOUNT_EXCEED_BALANCE"));
+
+        verify(failedTransactionRecorder).record("2000000000", TransactionType.USE, 3000L);
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         //given (parameter)
@@ -83,14 +127,17 @@ class TransactionControllerTest {
 
         //when (method)
         //then (assertEquals)
-        mockMvc.perform(post("/transaction/cancel")
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/cancel")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(
                                 new CancelBalance.Request("transactionId",
                                         "2000000000",3000L)
 
                         ))
-                ).andDo(print())
+                ).andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult)).andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accountNumber").value("1000000000"))
                 .andExpect(jsonPath("$.transactionResult").value("S"))
@@ -126,4 +173,59 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(54321L));
 
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void successGetTransactionHistory() throws Exception {
+        //given (parameter)
+        given(transactionService.getTransactionHistory(
+                eq("1000000000"), isNull(), eq(20), isNull(), isNull()))
+                .willReturn(TransactionHistory.builder()
+                        .accountNumber("1000000000")
+                        .transactions(Collections.singletonList(TransactionHistoryItem.builder()
+                                .id(7L)
+                                .transactionId("transactionId")
+                                .transactionType(TransactionType.USE)
+                                .transactionResult(TransactionResultType.S)
+                                .amount(1000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build()))
+                        .nextCursor("nextCursor")
+                        .build());
+        //when (method)
+        //then (assertEquals)
+        mockMvc.perform(get("/account/1000000000/transactions"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.transactions[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.transactions[0].id").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+    }
+
+    @Test
+    void successExportTransactions() throws Exception {
+        //given (parameter)
+        willAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(5);
+            out.write("{\"transactionId\":\"transactionId\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).given(transactionExportService).export(eq(ExportFormat.NDJSON),
+                eq(LocalDateTime.of(2024, 1, 1, 0, 0)), eq(LocalDateTime.of(2024, 1, 2, 0, 0)),
+                eq("1000000000"), eq(false), any(OutputStream.class));
+        //when (method)
+        //then (assertEquals)
+        mockMvc.perform(get("/transaction/export")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-01-02T00:00:00")
+                        .param("account_number", "1000000000")
+                        .param("gzip", "false"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"transactions-2024-01-01.ndjson\""))
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(content().string("{\"transactionId\":\"transactionId\"}\n"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.account.domain;
+
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Flyway 로 만든 스키마에 validate 로 뜨는지, 엔티티마다 자기 sequence 에서 50개씩 예약하는지 확인
+ * */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+class EntityIdGeneratorTest {
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void eachEntityReservesFromItsOwnSequence() {
+        //given (parameter)
+        AccountUser user = accountUserRepository.save(AccountUser.builder()
+                .name("Pororo").build());
+        AccountUser nextUser = accountUserRepository.save(AccountUser.builder()
+                .name("Lupi").build());
+
+        //when (method)
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .account(account)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId(TransactionIdConverter.format(42L))
+                .transactedAt(LocalDateTime.now())
+                .build());
+        testEntityManager.flush();
+
+        //then (assertEquals)
+        //pooled-lo: sequence 값이 구간의 시작이고, 구간 안에서는 sequence 를 다시 부르지 않는다
+        assertEquals(user.getId() + 1, nextUser.getId());
+        assertEquals(user.getId() + 50, nextValue("account_user_seq"));
+        assertEquals(account.getId() + 50, nextValue("account_seq"));
+        assertEquals(transaction.getId() + 50, nextValue("transaction_seq"));
+    }
+
+    private long nextValue(String sequence) {
+        return ((Number) testEntityManager.getEntityManager()
+                .createNativeQuery("select next value for " + sequence)
+                .getSingleResult()).longValue();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.account.domain;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * V3 (거래 id BIGINT 전환) 이 기존 UUID 거래 id 를 가진 DB 에서도 적용되는지 확인
+ * */
+class TransactionIdMigrationTest {
+
+    @Test
+    void legacyUuidTransactionIdsSurviveBigintMigration() {
+        //given (parameter)
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:transaction_id_migration;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+        jdbcTemplate.update("insert into account (id, account_number, account_status, balance, account_user_id)" +
+                " values (10, '1000000000', 'IN_USE', 9000, 1)");
+        jdbcTemplate.update("insert into transaction (id, transaction_type, transaction_result_type, amount," +
+                " balance_snapshot, transaction_id, account_id)" +
+                " values (20, 'USE', 'S', 1000, 9000, 'c2033bb6d82a4250aecf8e27c49b63f6', 10)");
+
+        //when (method)
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        //then (assertEquals)
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select transaction_id, legacy_transaction_id from transaction where id = 20");
+        assertEquals(20L, ((Number) row.get("TRANSACTION_ID")).longValue());
+        assertEquals("c2033bb6d82a4250aecf8e27c49b63f6", row.get("LEGACY_TRANSACTION_ID"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountBalanceCacheTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic topic;
+
+    @InjectMocks
+    private AccountBalanceCache accountBalanceCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getTopic("ACCOUNT:INVALIDATE", StringCodec.INSTANCE))
+                .willReturn(topic);
+        accountBalanceCache.start();
+    }
+
+    @Test
+    void secondReadIsServedFromCache() {
+        //when (method)
+        accountBalanceCache.get(1L, this::load);
+        List<AccountInfo> result = accountBalanceCache.get(1L, this::load);
+
+        //then (assertEquals)
+        assertEquals(1, loads.get());
+        assertEquals(1000L, result.get(0).getBalance());
+    }
+
+    @Test
+    void ownWriteInvalidatesAndPublishes() {
+        //given (parameter)
+        accountBalanceCache.get(1L, this::load);
+
+        //when (method)
+        accountBalanceCache.invalidateAfterCommit(1L);
+        accountBalanceCache.get(1L, this::load);
+
+        //then (assertEquals)
+        assertEquals(2, loads.get());
+        verify(topic).publishAsync(endsWith(":1"));
+    }
+
+    @Test
+    void messageFromOtherNodeInvalidates() {
+        //given (parameter)
+        MessageListener<String> listener = captureListener();
+        accountBalanceCache.get(1L, this::load);
+
+        //when (method)
+        listener.onMessage("ACCOUNT:INVALIDATE", "other-node:1");
+        accountBalanceCache.get(1L, this::load);
+
+        //then (assertEquals)
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void ownMessageIsIgnored() {
+        //given (parameter)
+        MessageListener<String> listener = captureListener();
+        accountBalanceCache.invalidateAfterCommit(2L);
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(topic).publishAsync(published.capture());
+        accountBalanceCache.get(1L, this::load);
+
+        //when (method)
+        listener.onMessage("ACCOUNT:INVALIDATE", published.getValue().replace(":2", ":1"));
+        accountBalanceCache.get(1L, this::load);
+
+        //then (assertEquals)
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void readRacingWithInvalidationIsNotCached() {
+        //when (method)
+        // DB 를 읽는 사이에 다른 요청이 잔액을 바꾼 상황
+        accountBalanceCache.get(1L, () -> {
+            List<AccountInfo> stale = load();
+            accountBalanceCache.invalidateLocal(1L);
+            return stale;
+        });
+        accountBalanceCache.get(1L, this::load);
+
+        //then (assertEquals)
+        assertEquals(2, loads.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageListener<String> captureListener() {
+        ArgumentCaptor<MessageListener<String>> captor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(topic).addListener(eq(String.class), captor.capture());
+        return captor.getValue();
+    }
+
+    private List<AccountInfo> load() {
+        loads.incrementAndGet();
+        return Collections.singletonList(new AccountInfo("1000000000", 1000L));
+    }
+}
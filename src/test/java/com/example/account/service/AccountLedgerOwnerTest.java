@@ -0,0 +1,70 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLedgerOwnerTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RBucket<String> ownerKey;
+
+    @Mock
+    private RScript script;
+
+    @InjectMocks
+    private AccountLedgerOwner owner;
+
+    @Test
+    void startupFailsWhenAnotherNodeOwnsLedger() {
+        //given (parameter)
+        given(redissonClient.<String>getBucket(eq("LEDGER:OWNER"), any(Codec.class)))
+                .willReturn(ownerKey);
+        given(ownerKey.setIfAbsent(anyString(), any(Duration.class)))
+                .willReturn(false);
+
+        //when (method)
+        assertThrows(IllegalStateException.class, () -> owner.acquire());
+
+        //then (assertEquals)
+        assertFalse(owner.isHeld());
+    }
+
+    @Test
+    void lostLeaseIsNotTakenBack() {
+        //given (parameter)
+        given(redissonClient.<String>getBucket(eq("LEDGER:OWNER"), any(Codec.class)))
+                .willReturn(ownerKey);
+        given(ownerKey.setIfAbsent(anyString(), any(Duration.class)))
+                .willReturn(true);
+        given(redissonClient.getScript(any(Codec.class)))
+                .willReturn(script);
+        //만료된 뒤라 내 임대 표시가 없음
+        given(script.<Long>eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class),
+                anyList(), any(Object[].class)))
+                .willReturn(0L);
+        owner.acquire();
+        assertTrue(owner.isHeld());
+
+        //when (method)
+        owner.renew();
+
+        //then (assertEquals)
+        assertFalse(owner.isHeld());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.LedgerEntryType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLedgerProjectorTest {
+    @Mock
+    private AccountLedger accountLedger;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountBalanceCache accountBalanceCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private AccountLedgerProjector accountLedgerProjector;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void projectWritesLastBalanceAndTransactions() throws Exception {
+        //given (parameter)
+        AccountUser user = AccountUser.builder().name("You").build();
+        user.setId(12L);
+        Account account = Account.builder().accountUser(user).balance(10000L).build();
+        account.setId(1L);
+
+        given(accountLedger.getProjectedSequence()).willReturn(0L, 3L);
+        given(accountLedger.read(anyLong(), anyInt()))
+                .willReturn(Arrays.asList(
+                        entry(1L, LedgerEntryType.OPEN, 10000L, 10000L, null),
+                        entry(2L, LedgerEntryType.USE, 1000L, 9000L, "tx1"),
+                        entry(3L, LedgerEntryType.CANCEL, 1000L, 10000L, "tx2")))
+                .willReturn(Collections.emptyList());
+        given(transactionManager.getTransaction(any()))
+                .willReturn(new SimpleTransactionStatus());
+        given(accountRepository.findAllById(any()))
+                .willReturn(Collections.singletonList(account));
+        given(transactionRepository.findExistingTransactionIds(anyList()))
+                .willReturn(Collections.singletonList("tx1"));
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when (method)
+        int projected = accountLedgerProjector.project();
+
+        //then (assertEquals)
+        assertEquals(3, projected);
+        assertEquals(10000L, account.getBalance());
+        verify(accountBalanceCache).invalidateAfterCommit(12L);
+        verify(transactionRepository).saveAll(captor.capture());
+        // OPEN 과 이미 들어간 tx1 은 제외
+        assertEquals(1, captor.getValue().size());
+        assertEquals("tx2", captor.getValue().get(0).getTransactionId());
+        assertEquals(TransactionType.CANCEL, captor.getValue().get(0).getTransactionType());
+        verify(accountLedger).markProjected(3L);
+    }
+
+    @Test
+    void failedProjectionDoesNotMoveSequence() throws Exception {
+        //given (parameter)
+        given(accountLedger.getProjectedSequence()).willReturn(0L);
+        given(accountLedger.read(anyLong(), anyInt()))
+                .willReturn(Collections.singletonList(
+                        entry(1L, LedgerEntryType.OPEN, 10000L, 10000L, null)));
+        given(transactionManager.getTransaction(any()))
+                .willReturn(new SimpleTransactionStatus());
+        given(accountRepository.findAllById(any()))
+                .willThrow(new IllegalStateException("db down"));
+
+        //when (method)
+        int projected = accountLedgerProjector.project();
+
+        //then (assertEquals)
+        assertEquals(0, projected);
+        verify(accountLedger, never()).markProjected(anyLong());
+    }
+
+    private static LedgerEntry entry(long sequence, LedgerEntryType type, long amount,
+                                     long balanceAfter, String transactionId) {
+        return LedgerEntry.builder()
+                .sequence(sequence)
+                .accountId(1L)
+                .type(type)
+                .amount(amount)
+                .balanceAfter(balanceAfter)
+                .transactionId(transactionId)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LedgerEntryType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class AccountLedgerTest {
+    @TempDir
+    Path directory;
+
+    private AccountLedger ledger;
+
+    private long nextTransactionId = 1L;
+
+    @AfterEach
+    void tearDown() {
+        ledger.stop();
+    }
+
+    @Test
+    void firstEntryOpensAccountWithTableBalance() throws Exception {
+        //given (parameter)
+        ledger = start();
+
+        //when (method)
+        LedgerEntry entry = ledger.debit(account(1L, 10000L), 1000L, nextTransactionId());
+        ledger.force();
+
+        //then (assertEquals)
+        assertEquals(9000L, entry.getBalanceAfter());
+        assertEquals(LedgerEntryType.USE, entry.getType());
+        assertEquals(9000L, ledger.balanceOf(account(1L, 10000L)));
+        List<LedgerEntry> entries = ledger.read(1L, 10);
+        assertEquals(2, entries.size());
+        assertEquals(LedgerEntryType.OPEN, entries.get(0).getType());
+        assertEquals(10000L, entries.get(0).getBalanceAfter());
+        assertNull(entries.get(0).getTransactionId());
+        assertEquals(entry.getTransactionId(), entries.get(1).getTransactionId());
+    }
+
+    @Test
+    void debitExceedingBalanceIsRejected() throws Exception {
+        //given (parameter)
+        ledger = start();
+        ledger.debit(account(1L, 1000L), 600L, nextTransactionId());
+
+        //when (method)
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledger.debit(account(1L, 1000L), 600L, nextTransactionId()));
+
+        //then (assertEquals)
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(400L, ledger.balanceOf(account(1L, 1000L)));
+        assertEquals(2L, ledger.getLastSequence());
+    }
+
+    @Test
+    void entriesAreRejectedWithoutOwnerLease() throws Exception {
+        //given (parameter)
+        AccountLedgerOwner owner = mock(AccountLedgerOwner.class);
+        given(owner.isHeld()).willReturn(false);
+        AccountLedger accountLedger = new AccountLedger();
+        ReflectionTestUtils.setField(accountLedger, "owner", owner);
+        ledger = start(accountLedger);
+
+        //when (method)
+        assertThrows(IllegalStateException.class,
+                () -> ledger.debit(account(1L, 1000L), 100L, nextTransactionId()));
+
+        //then (assertEquals)
+        assertEquals(0L, ledger.getLastSequence());
+    }
+
+    @Test
+    void readReturnsOnlyForcedEntries() throws Exception {
+        //given (parameter)
+        ledger = start();
+        ledger.debit(account(1L, 1000L), 100L, nextTransactionId());
+
+        //when (method)
+        List<LedgerEntry> beforeForce = ledger.read(1L, 10);
+        ledger.force();
+        List<LedgerEntry> afterForce = ledger.read(1L, 10);
+
+        //then (assertEquals)
+        assertEquals(0, beforeForce.size());
+        assertEquals(2, afterForce.size());
+    }
+
+    @Test
+    void balancesAreRebuiltByReplay() throws Exception {
+        //given (parameter)
+        ledger = start();
+        ledger.debit(account(1L, 10000L), 1000L, nextTransactionId());
+        ledger.debit(account(2L, 500L), 500L, nextTransactionId());
+        ledger.credit(account(1L, 10000L), 300L, nextTransactionId());
+        ledger.stop();
+
+        //when (method)
+        // 테이블 잔액과 상관없이 ledger 의 값으로 복구됨
+        ledger = start();
+
+        //then (assertEquals)
+        assertEquals(9300L, ledger.balanceOf(account(1L, 0L)));
+        assertEquals(0L, ledger.balanceOf(account(2L, 999L)));
+        assertEquals(5L, ledger.getLastSequence());
+    }
+
+    @Test
+    void snapshotRemovesProjectedSegments() throws Exception {
+        //given (parameter)
+        ledger = new AccountLedger();
+        ReflectionTestUtils.setField(ledger, "recordsPerSegment", 2);
+        start(ledger);
+        for (int i = 0; i < 3; i++) {
+            ledger.debit(account(1L, 10000L), 100L, nextTransactionId());
+        }
+        // 기록 1~4 는 1,2번 segment
+        ledger.markProjected(4L);
+
+        //when (method)
+        ledger.snapshot();
+        ledger.stop();
+        ledger = new AccountLedger();
+        ReflectionTestUtils.setField(ledger, "recordsPerSegment", 2);
+        start(ledger);
+
+        //then (assertEquals)
+        assertEquals(0, segments().size());
+        assertEquals(9700L, ledger.balanceOf(account(1L, 0L)));
+        assertEquals(4L, ledger.getLastSequence());
+        assertEquals(4L, ledger.getProjectedSequence());
+    }
+
+    @Test
+    void tornEntryAndStaleTailAreCleared() throws Exception {
+        //given (parameter)
+        ledger = start();
+        ledger.debit(account(1L, 10000L), 1000L, nextTransactionId());
+        ledger.debit(account(1L, 10000L), 1000L, nextTransactionId());
+        ledger.stop();
+        // 세 번째 기록(두 번째 사용)의 CRC 를 깨뜨림
+        corrupt(segments().get(0), 2 * AccountLedger.RECORD_BYTES + 20);
+
+        //when (method)
+        ledger = start();
+        LedgerEntry entry = ledger.debit(account(1L, 10000L), 500L, nextTransactionId());
+
+        //then (assertEquals)
+        // 깨진 기록 직전(9000)부터 이어서 쓰고, 그 자리를 다시 사용함
+        assertEquals(3L, entry.getSequence());
+        assertEquals(8500L, ledger.balanceOf(account(1L, 0L)));
+    }
+
+    private AccountLedger start() throws Exception {
+        return start(new AccountLedger());
+    }
+
+    private AccountLedger start(AccountLedger accountLedger) throws Exception {
+        ReflectionTestUtils.setField(accountLedger, "dir", directory.toString());
+        accountLedger.start();
+        return accountLedger;
+    }
+
+    private String nextTransactionId() {
+        return TransactionIdConverter.format(nextTransactionId++);
+    }
+
+    private static Account account(long id, long balance) {
+        Account account = Account.builder().balance(balance).build();
+        account.setId(id);
+        return account;
+    }
+
+    private static void corrupt(Path segment, long position) throws Exception {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x5a}), position);
+        }
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".ledger"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountMailboxExecutorTest {
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private AccountMailboxExecutor accountMailboxExecutor;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountMailboxExecutor, "capacity", 10);
+        ReflectionTestUtils.setField(accountMailboxExecutor, "batchSize", 10);
+        ReflectionTestUtils.setField(accountMailboxExecutor, "workers", 2);
+        ReflectionTestUtils.setField(accountMailboxExecutor, "waitTimeoutMillis", 5000L);
+        accountMailboxExecutor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountMailboxExecutor.stop();
+        callers.shutdown();
+    }
+
+    @Test
+    void queuedRequestsRunInOneTransaction() throws Exception {
+        //given (parameter)
+        given(transactionManager.getTransaction(any()))
+                .willReturn(new SimpleTransactionStatus());
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+
+        //when (method)
+        Future<Object> first = callers.submit(() -> execute(() -> {
+            firstStarted.countDown();
+            releaseFirst.await();
+            return "first";
+        }));
+        assertTrue(firstStarted.await(1, TimeUnit.SECONDS));
+
+        // 첫 요청이 처리되는 동안 쌓인 두 요청은 한 배치로 처리되어야 함
+        Future<Object> second = callers.submit(() -> execute(() -> "second"));
+        Future<Object> third = callers.submit(() -> execute(() -> "third"));
+        Thread.sleep(200L);
+        releaseFirst.countDown();
+
+        //then (assertEquals)
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+        assertEquals("second", second.get(1, TimeUnit.SECONDS));
+        assertEquals("third", third.get(1, TimeUnit.SECONDS));
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(lockService, times(2)).lock(eq("1234567890"), any(LockPolicy.class));
+        verify(lockService, times(2)).unlock(eq("1234567890"), any(LockPolicy.class));
+    }
+
+    @Test
+    void failedRequestInBatchIsRetriedAlone() throws Exception {
+        //given (parameter)
+        given(transactionManager.getTransaction(any()))
+                .willReturn(new SimpleTransactionStatus());
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        AtomicInteger okRuns = new AtomicInteger();
+
+        //when (method)
+        Future<Object> first = callers.submit(() -> execute(() -> {
+            firstStarted.countDown();
+            releaseFirst.await();
+            return "first";
+        }));
+        assertTrue(firstStarted.await(1, TimeUnit.SECONDS));
+
+        Future<Object> failing = callers.submit(() -> execute(() -> {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }));
+        Thread.sleep(100L);
+        Future<Object> ok = callers.submit(() -> execute(okRuns::incrementAndGet));
+        Thread.sleep(100L);
+        releaseFirst.countDown();
+
+        //then (assertEquals)
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> failing.get(1, TimeUnit.SECONDS));
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+        // 배치가 롤백된 뒤 혼자 다시 실행된 결과를 받음
+        assertEquals(1, ok.get(1, TimeUnit.SECONDS));
+        assertEquals(1, okRuns.get());
+    }
+
+    @Test
+    void ledgerModeNeverRetriesBatchedDebits(@TempDir Path directory) throws Exception {
+        //given (parameter)
+        ReflectionTestUtils.setField(accountMailboxExecutor, "ledgerEnabled", true);
+        AccountLedger ledger = new AccountLedger();
+        ReflectionTestUtils.setField(ledger, "dir", directory.toString());
+        ledger.start();
+        Account account = Account.builder().balance(10000L).build();
+        account.setId(1L);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+
+        //when (method)
+        Future<Object> first = callers.submit(() -> execute(() -> {
+            firstStarted.countDown();
+            releaseFirst.await();
+            return ledger.debit(account, 1000L, TransactionIdConverter.format(1L));
+        }));
+        assertTrue(firstStarted.await(1, TimeUnit.SECONDS));
+
+        // 성공하는 요청과 실패하는 요청이 한 번에 꺼내진다
+        Future<Object> ok = callers.submit(() -> execute(
+                () -> ledger.debit(account, 1000L, TransactionIdConverter.format(2L))));
+        Thread.sleep(100L);
+        Future<Object> failing = callers.submit(() -> execute(
+                () -> ledger.debit(account, 100000L, TransactionIdConverter.format(3L))));
+        Thread.sleep(100L);
+        releaseFirst.countDown();
+
+        //then (assertEquals)
+        assertNotNull(first.get(1, TimeUnit.SECONDS));
+        assertNotNull(ok.get(1, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> failing.get(1, TimeUnit.SECONDS));
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+        // OPEN + 성공한 두 건만 기록되고, 롤백 후 재실행으로 같은 차감이 다시 기록되지 않음
+        assertEquals(3L, ledger.getLastSequence());
+        assertEquals(8000L, ledger.balanceOf(account));
+        verify(transactionManager, times(0)).getTransaction(any());
+        ledger.stop();
+    }
+
+    @Test
+    void lockFailureFailsWholeBatch() {
+        //given (parameter)
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(eq("1234567890"), any(LockPolicy.class));
+
+        //when (method)
+        AccountException exception = assertThrows(AccountException.class,
+                () -> execute(() -> "never"));
+
+        //then (assertEquals)
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedRequestInBatchIsRecordedOnce() throws Exception {
+        //given (parameter)
+        // 배치 트랜잭션의 synchronization 이 실제로 동작하도록 아무것도 하지 않는 transaction manager 를 쓴다
+        AccountMailboxExecutor executor = new AccountMailboxExecutor(lockService, new NoOpTransactionManager());
+        ReflectionTestUtils.setField(executor, "capacity", 10);
+        ReflectionTestUtils.setField(executor, "batchSize", 10);
+        ReflectionTestUtils.setField(executor, "workers", 1);
+        ReflectionTestUtils.setField(executor, "waitTimeoutMillis", 5000L);
+        executor.start();
+
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        TransactionIdGenerator transactionIdGenerator = mock(TransactionIdGenerator.class);
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(accountRepository,
+                transactionRepository, transactionIdGenerator, new NoOpTransactionManager());
+        recorder.start();
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Collections.singletonList(Account.builder()
+                        .accountNumber("1234567890").balance(100L).build()));
+        given(transactionIdGenerator.nextId()).willReturn("tx1", "tx2");
+
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        // TransactionController 처럼 실패하면 기록하고 다시 던지는 요청
+        AccountTask failingTask = () -> {
+            recorder.record("1234567890", TransactionType.USE, 1000L);
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        };
+
+        //when (method)
+        Future<Object> first = callers.submit(() -> execute(executor, () -> {
+            firstStarted.countDown();
+            releaseFirst.await();
+            return "first";
+        }));
+        assertTrue(firstStarted.await(1, TimeUnit.SECONDS));
+        // 실패하는 요청과 성공하는 요청이 한 배치로 묶여서 롤백된 뒤 한 건씩 다시 실행된다
+        Future<Object> failing = callers.submit(() -> execute(executor, failingTask));
+        Future<Object> ok = callers.submit(() -> execute(executor, () -> "ok"));
+        Thread.sleep(200L);
+        releaseFirst.countDown();
+
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> failing.get(1, TimeUnit.SECONDS));
+        assertEquals("ok", ok.get(1, TimeUnit.SECONDS));
+        recorder.flush();
+        executor.stop();
+
+        //then (assertEquals)
+        ArgumentCaptor<List<Transaction>> saved = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(TransactionResultType.F, saved.getValue().get(0).getTransactionResultType());
+    }
+
+    @Test
+    void requestNotStartedWithinWaitTimeoutIsAbandoned() throws Exception {
+        //given (parameter)
+        ReflectionTestUtils.setField(accountMailboxExecutor, "waitTimeoutMillis", 100L);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        AtomicInteger queuedRuns = new AtomicInteger();
+
+        //when (method)
+        CompletableFuture<Object> first = accountMailboxExecutor.submit("1234567890",
+                LockPolicy.DEFAULT, () -> {
+                    firstStarted.countDown();
+                    releaseFirst.await();
+                    return "first";
+                });
+        assertTrue(firstStarted.await(1, TimeUnit.SECONDS));
+        CompletableFuture<Object> queued = accountMailboxExecutor.submit("1234567890",
+                LockPolicy.DEFAULT, queuedRuns::incrementAndGet);
+
+        //then (assertEquals)
+        // 시작한 요청은 대기시간이 지나도 끝날 때까지 기다리고, 시작 못 한 요청은 실패한 뒤 실행되지 않는다
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> queued.get(1, TimeUnit.SECONDS));
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+        assertFalse(first.isDone());
+        releaseFirst.countDown();
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+        Thread.sleep(100L);
+        assertEquals(0, queuedRuns.get());
+    }
+
+    @Test
+    void drainedMailboxesAreRemoved() throws Exception {
+        //when (method)
+        //한 건씩 처리되므로 트랜잭션 없이 실행된다
+        for (int i = 0; i < 50; i++) {
+            accountMailboxExecutor.submit("10000000" + i, LockPolicy.DEFAULT, () -> "ok")
+                    .get(1, TimeUnit.SECONDS);
+        }
+
+        //then (assertEquals)
+        // 결과를 돌려준 뒤 worker 가 mailbox 를 치우므로 잠깐 기다린다
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (accountMailboxExecutor.getMailboxCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(0, accountMailboxExecutor.getMailboxCount());
+    }
+
+    private Object execute(AccountTask task) throws Exception {
+        return execute(accountMailboxExecutor, task);
+    }
+
+    private static Object execute(AccountMailboxExecutor executor, AccountTask task) throws Exception {
+        try {
+            return executor.submit("1234567890", LockPolicy.DEFAULT, task).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
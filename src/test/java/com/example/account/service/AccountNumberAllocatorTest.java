@@ -0,0 +1,182 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private AccountNumberBlockSource accountNumberBlockSource;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    void numbersInBlockAreServedFromMemory() {
+        //given (parameter)
+        given(accountNumberBlockSource.reserve(eq(100), anyLong()))
+                .willReturn(0L);
+
+        //when (method)
+        String first = accountNumberAllocator.nextAccountNumber();
+        String second = accountNumberAllocator.nextAccountNumber();
+        String third = accountNumberAllocator.nextAccountNumber();
+
+        //then (assertEquals)
+        assertEquals("1000000000", first);
+        assertEquals("1000000001", second);
+        assertEquals("1000000002", third);
+        verify(accountNumberBlockSource, times(1)).reserve(eq(100), anyLong());
+    }
+
+    @Test
+    void exhaustedBlockReservesNextBlock() {
+        //given (parameter)
+        ReflectionTestUtils.setField(accountNumberAllocator, "blockSize", 2);
+        given(accountNumberBlockSource.reserve(eq(2), anyLong()))
+                .willReturn(0L, 100L);
+
+        //when (method)
+        accountNumberAllocator.nextAccountNumber();
+        accountNumberAllocator.nextAccountNumber();
+        String accountNumber = accountNumberAllocator.nextAccountNumber();
+
+        //then (assertEquals)
+        assertEquals("1000000100", accountNumber);
+        verify(accountNumberBlockSource, times(2)).reserve(eq(2), anyLong());
+    }
+
+    @Test
+    void reservesAfterExistingAccountNumbers() {
+        //given (parameter)
+        given(accountRepository.findMaxAccountNumber())
+                .willReturn(Optional.of("1000000041"));
+        given(accountNumberBlockSource.reserve(100, 42L))
+                .willReturn(42L);
+
+        //when (method)
+        String accountNumber = accountNumberAllocator.nextAccountNumber();
+
+        //then (assertEquals)
+        assertEquals("1000000042", accountNumber);
+        verify(accountNumberBlockSource, times(1)).reserve(100, 42L);
+    }
+
+    @Test
+    void checkDigitIsAppended() {
+        //given (parameter)
+        ReflectionTestUtils.setField(accountNumberAllocator, "checkDigit", true);
+        given(accountNumberBlockSource.reserve(anyInt(), anyLong()))
+                .willReturn(0L);
+
+        //when (method)
+        String accountNumber = accountNumberAllocator.nextAccountNumber();
+
+        //then (assertEquals)
+        assertEquals("1000000008", accountNumber);
+        assertEquals(3, AccountNumberAllocator.luhnCheckDigit("7992739871"));
+    }
+
+    @Test
+    void stopsWhenNumberSpaceIsExhausted() {
+        //given (parameter)
+        given(accountNumberBlockSource.reserve(anyInt(), anyLong()))
+                .willReturn(9_000_000_000L);
+
+        //when (method)
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountNumberAllocator.nextAccountNumber());
+
+        //then (assertEquals)
+        assertEquals(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED, exception.getErrorCode());
+    }
+
+    @Test
+    void concurrentCallersNeverGetSameNumber() throws Exception {
+        //given (parameter)
+        ReflectionTestUtils.setField(accountNumberAllocator, "blockSize", 10);
+        AtomicLong counter = new AtomicLong();
+        given(accountNumberBlockSource.reserve(eq(10), anyLong()))
+                .willAnswer(invocation -> counter.getAndAdd(10));
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+
+        //when (method)
+        for (int i = 0; i < 8; i++) {
+            callers.execute(() -> {
+                for (int j = 0; j < 500; j++) {
+                    accountNumbers.add(accountNumberAllocator.nextAccountNumber());
+                }
+            });
+        }
+        callers.shutdown();
+
+        //then (assertEquals)
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(4000, accountNumbers.size());
+    }
+
+    @Test
+    void refillDoesNotPinVirtualThreads(@TempDir Path tempDir) throws Exception {
+        //given (parameter)
+        ReflectionTestUtils.setField(accountNumberAllocator, "blockSize", 10);
+        AtomicLong counter = new AtomicLong();
+        // 저장소 왕복을 흉내내서 refill 중에 block 되도록 한다
+        given(accountNumberBlockSource.reserve(eq(10), anyLong()))
+                .willAnswer(invocation -> {
+                    Thread.sleep(20L);
+                    return counter.getAndAdd(10);
+                });
+        Path dump = tempDir.resolve("pinned.jfr");
+
+        //when (method)
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(10));
+            recording.start();
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 200; i++) {
+                    callers.execute(accountNumberAllocator::nextAccountNumber);
+                }
+            }
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        //then (assertEquals)
+        List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .toList();
+        assertEquals(0, pinned.size());
+        verify(accountNumberBlockSource, times(20)).reserve(eq(10), anyLong());
+    }
+}
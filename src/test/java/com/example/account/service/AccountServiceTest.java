@@ -3,6 +3,7 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
@@ -19,8 +20,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,6 +40,15 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private AccountBalanceCache accountBalanceCache;
+
+    @Mock
+    private AccountUserCache accountUserCache;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -49,13 +61,13 @@ class AccountServiceTest {
                 .name("You").build();
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                                .accountUser(user)
-                                .accountNumber("1000000012").build()));
+        given(accountUserRepository.incrementAccountCount(12L, 10))
+                .willReturn(1);
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000013");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -84,11 +96,13 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("You").build();
         user.setId(15L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountUserRepository.incrementAccountCount(15L, 10))
+                .willReturn(1);
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000000");
 
         //아직 계좌가 하나도 없는상황일 때
         given(accountRepository.save(any()))
@@ -108,6 +122,7 @@ class AccountServiceTest {
         verify(accountRepository,times(1)).save(captor.capture());
         assertEquals(15L, accountDto.getUserId());
         assertEquals("1000000000", captor.getValue().getAccountNumber());
+        verify(accountBalanceCache, times(1)).invalidateAfterCommit(1L);
     }
 
 
@@ -116,7 +131,7 @@ class AccountServiceTest {
     void createAccountUserNotFound(){
         //given (parameter)
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
 
 
@@ -136,10 +151,10 @@ class AccountServiceTest {
             .name("You").build();
         user.setId(12L);
 
-    given(accountUserRepository.findById(anyLong()))
+    given(accountUserCache.findById(anyLong()))
             .willReturn(Optional.of(user));
-    given(accountRepository.countByAccountUser(any()))
-            .willReturn(10);
+    given(accountUserRepository.incrementAccountCount(12L, 10))
+            .willReturn(0);
 
     //when (method)
     AccountException exception = assertThrows(AccountException.class,
@@ -147,6 +162,7 @@ class AccountServiceTest {
 
     //then (assertEquals)
     assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10,exception.getErrorCode());
+    verify(accountRepository, times(0)).save(any());
      }
 
 
@@ -158,7 +174,7 @@ class AccountServiceTest {
                 .name("You").build();
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -178,6 +194,7 @@ class AccountServiceTest {
         assertEquals(12L, accountDto.getUserId());
         assertEquals("1000000012",captor.getValue().getAccountNumber());
         assertEquals(AccountStatus.UNREGISTERED,captor.getValue().getAccountStatus());
+        verify(accountUserRepository, times(1)).decrementAccountCount(12L);
 
     }
 
@@ -186,7 +203,7 @@ class AccountServiceTest {
     @DisplayName("해당 유저 없음 - 계좌 해지 실패")
     void deleteAccount_UserNotFound(){
         //given (parameter)
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
 
 
@@ -206,7 +223,7 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("You").build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -239,7 +256,7 @@ class AccountServiceTest {
                 .name("Park").build();
         user.setId(13L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -265,7 +282,7 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("You").build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -292,7 +309,7 @@ class AccountServiceTest {
                 .name("You").build();
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -315,47 +332,31 @@ class AccountServiceTest {
     @Test
      void successGetAccountsByUserId(){
         //given (parameter)
-        AccountUser user = AccountUser.builder()
-                .name("You").build();
-        user.setId(12L);
-
-        List<Account> accounts = Arrays.asList(
-                Account.builder()
-                        .accountUser(user)
-                        .accountNumber("1111111111")
-                        .balance(1000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(user)
-                        .accountNumber("2222222222")
-                        .balance(2000L)
-                        .build(),
-                Account.builder()
-                        .accountUser(user)
-                        .accountNumber("3333333333")
-                        .balance(3000L)
-                        .build()
+        givenCacheMiss();
+        List<AccountInfo> accountInfos = Arrays.asList(
+                new AccountInfo("1111111111", 1000L),
+                new AccountInfo("2222222222", 2000L),
+                new AccountInfo("3333333333", 3000L)
         );
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(accounts);
+        given(accountRepository.findAccountInfosByUserId(anyLong()))
+                .willReturn(accountInfos);
 
      //when (method)
-        List<AccountDto> accountDtos = accountService.getAccountByUserId(2L);
+        List<AccountInfo> result = accountService.getAccountByUserId(2L);
 
         //then (assertEquals)
-        assertEquals(3,accountDtos.size());
-        assertEquals("1111111111",accountDtos.get(0).getAccountNumber());
-        assertEquals(1000,accountDtos.get(0).getBalance());
+        //계좌가 있으면 사용자 조회는 하지 않음
+        verify(accountUserCache, times(0)).existsById(anyLong());
+        assertEquals(3,result.size());
+        assertEquals("1111111111",result.get(0).getAccountNumber());
+        assertEquals(1000,result.get(0).getBalance());
 
-        assertEquals("2222222222",accountDtos.get(1).getAccountNumber());
-        assertEquals(2000,accountDtos.get(1).getBalance());
+        assertEquals("2222222222",result.get(1).getAccountNumber());
+        assertEquals(2000,result.get(1).getBalance());
 
-        assertEquals("3333333333",accountDtos.get(2).getAccountNumber());
-        assertEquals(3000,accountDtos.get(2).getBalance());
+        assertEquals("3333333333",result.get(2).getAccountNumber());
+        assertEquals(3000,result.get(2).getBalance());
 
      }
 
@@ -363,8 +364,11 @@ class AccountServiceTest {
      @Test
       void failedToGetAccounts(){
       //given (parameter)
-        given(accountUserRepository.findById(anyLong()))
-                 .willReturn(Optional.empty());
+        givenCacheMiss();
+        given(accountRepository.findAccountInfosByUserId(anyLong()))
+                .willReturn(Collections.emptyList());
+        given(accountUserCache.existsById(anyLong()))
+                 .willReturn(false);
 
 
      //when (method)
@@ -374,4 +378,28 @@ class AccountServiceTest {
      //then (assertEquals)
      assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
       }
-}
\ No newline at end of file
+
+
+     @Test
+      void getAccountsOfUserWithoutAccounts(){
+      //given (parameter)
+        givenCacheMiss();
+        given(accountRepository.findAccountInfosByUserId(anyLong()))
+                .willReturn(Collections.emptyList());
+        given(accountUserCache.existsById(anyLong()))
+                 .willReturn(true);
+
+     //when (method)
+     List<AccountInfo> result = accountService.getAccountByUserId(1L);
+
+     //then (assertEquals)
+     assertTrue(result.isEmpty());
+      }
+
+    //near-cache 에 항목이 없어서 loader 가 실행되는 상황
+    @SuppressWarnings("unchecked")
+    private void givenCacheMiss() {
+        given(accountBalanceCache.get(anyLong(), any()))
+                .willAnswer(invocation -> ((Supplier<List<AccountInfo>>) invocation.getArgument(1)).get());
+    }
+}
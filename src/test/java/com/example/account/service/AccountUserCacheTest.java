@@ -0,0 +1,85 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.CacheMetricsResponse;
+import com.example.account.repository.AccountUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountUserCacheTest {
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @InjectMocks
+    private AccountUserCache accountUserCache;
+
+    @BeforeEach
+    void setUp() {
+        accountUserCache.init();
+    }
+
+    @Test
+    void knownUserIsReturnedWithoutSelect() {
+        //given (parameter)
+        AccountUser user = AccountUser.builder()
+                .name("You").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.of(user));
+        given(accountUserRepository.getReferenceById(12L))
+                .willReturn(user);
+
+        //when (method)
+        accountUserCache.findById(12L);
+        Optional<AccountUser> cached = accountUserCache.findById(12L);
+
+        //then (assertEquals)
+        assertEquals(12L, cached.get().getId());
+        verify(accountUserRepository, times(1)).findById(12L);
+        CacheMetricsResponse stats = accountUserCache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    void missingUserIsNotCached() {
+        //given (parameter)
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.empty());
+
+        //when (method)
+        accountUserCache.findById(12L);
+        Optional<AccountUser> result = accountUserCache.findById(12L);
+
+        //then (assertEquals)
+        assertFalse(result.isPresent());
+        verify(accountUserRepository, times(2)).findById(12L);
+    }
+
+    @Test
+    void existsByIdSharesCachedUsers() {
+        //given (parameter)
+        given(accountUserRepository.existsById(12L))
+                .willReturn(true);
+
+        //when (method)
+        accountUserCache.existsById(12L);
+        boolean exists = accountUserCache.existsById(12L);
+
+        //then (assertEquals)
+        assertTrue(exists);
+        verify(accountUserRepository, times(1)).existsById(12L);
+    }
+}
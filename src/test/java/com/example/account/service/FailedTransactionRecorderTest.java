@@ -0,0 +1,137 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.FailedTransactionMetricsResponse;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(failedTransactionRecorder, "queueCapacity", 3);
+        ReflectionTestUtils.setField(failedTransactionRecorder, "maxAggregatedKeys", 1);
+        failedTransactionRecorder.start();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushSavesBatchWithOneAccountLookup() {
+        //given (parameter)
+        Account account = Account.builder()
+                .accountNumber("1000000000")
+                .balance(10000L)
+                .build();
+        given(transactionManager.getTransaction(any()))
+                .willReturn(new SimpleTransactionStatus());
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Collections.singletonList(account));
+        given(transactionIdGenerator.nextId())
+                .willReturn("tx1", "tx2");
+        failedTransactionRecorder.record("1000000000", TransactionType.USE, 20000L);
+        failedTransactionRecorder.record("1000000000", TransactionType.CANCEL, 500L);
+        // 없는 계좌의 실패는 저장하지 않음
+        failedTransactionRecorder.record("9999999999", TransactionType.USE, 100L);
+        ArgumentCaptor<Collection<String>> accountNumbers = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<List<Transaction>> saved = ArgumentCaptor.forClass(List.class);
+
+        //when (method)
+        int flushed = failedTransactionRecorder.flush();
+
+        //then (assertEquals)
+        assertEquals(2, flushed);
+        verify(accountRepository, times(1)).findByAccountNumberIn(accountNumbers.capture());
+        assertEquals(2, accountNumbers.getValue().size());
+        verify(transactionRepository).saveAll(saved.capture());
+        assertEquals(TransactionResultType.F, saved.getValue().get(0).getTransactionResultType());
+        assertEquals(20000L, saved.getValue().get(0).getAmount());
+        assertEquals(10000L, saved.getValue().get(0).getBalanceSnapshot());
+        assertEquals(TransactionType.CANCEL, saved.getValue().get(1).getTransactionType());
+
+        FailedTransactionMetricsResponse stats = failedTransactionRecorder.stats();
+        assertEquals(2L, stats.getRecorded());
+        assertEquals(1L, stats.getDropped());
+        assertEquals(0, stats.getQueued());
+    }
+
+    @Test
+    void saturatedQueueAggregatesIdenticalFailures() {
+        //given (parameter)
+        for (int i = 0; i < 3; i++) {
+            failedTransactionRecorder.record("1000000000", TransactionType.USE, 100L);
+        }
+
+        //when (method)
+        // 큐(3)가 가득 찬 뒤의 같은 실패는 카운터로, 카운터 키(1)도 넘치면 버린 건수로만 센다
+        for (int i = 0; i < 5; i++) {
+            failedTransactionRecorder.record("1000000000", TransactionType.USE, 100L);
+        }
+        failedTransactionRecorder.record("1000000001", TransactionType.USE, 100L);
+
+        //then (assertEquals)
+        FailedTransactionMetricsResponse stats = failedTransactionRecorder.stats();
+        assertEquals(3, stats.getQueued());
+        assertEquals(5L, stats.getAggregated());
+        assertEquals(1L, stats.getDropped());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void failedBatchIsCountedAsDropped() {
+        //given (parameter)
+        given(transactionManager.getTransaction(any()))
+                .willReturn(new SimpleTransactionStatus());
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willThrow(new IllegalStateException("db down"));
+        failedTransactionRecorder.record("1000000000", TransactionType.USE, 100L);
+        failedTransactionRecorder.record("1000000001", TransactionType.USE, 100L);
+
+        //when (method)
+        int flushed = failedTransactionRecorder.flush();
+
+        //then (assertEquals)
+        assertEquals(0, flushed);
+        assertEquals(2L, failedTransactionRecorder.stats().getDropped());
+        assertEquals(0, failedTransactionRecorder.stats().getQueued());
+    }
+}
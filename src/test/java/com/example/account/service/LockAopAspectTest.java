@@ -1,18 +1,32 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
+import com.example.account.aop.LockPolicy;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
 import com.example.account.type.ErrorCode;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -21,15 +35,28 @@ class LockAopAspectTest {
     @Mock
     private LockService lockService;
 
+    @Mock
+    private AccountMailboxExecutor accountMailboxExecutor;
+
+    @Mock
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Mock
+    private Executor transactionExecutor;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private MethodSignature methodSignature;
+
     @InjectMocks
     private LockAopAspect lockAopAspect;
 
     @Test
      void lockAndUnlock() throws Throwable {
      //given (parameter)
+        givenLockedMethod("lockedMethod");
         ArgumentCaptor<String> lockArgumentCaptor =
                 ArgumentCaptor.forClass(String.class);
 
@@ -45,10 +72,10 @@ class LockAopAspectTest {
 
      //then (assertEquals)
         verify(lockService, times(1))
-                .lock(lockArgumentCaptor.capture());
+                .lock(lockArgumentCaptor.capture(), any(LockPolicy.class));
 
         verify(lockService, times(1))
-                .unlock(unlockArgumentCaptor.capture());
+                .unlock(unlockArgumentCaptor.capture(), any(LockPolicy.class));
 
         assertEquals("1234",lockArgumentCaptor.getValue());
         assertEquals("1234",unlockArgumentCaptor.getValue());
@@ -58,6 +85,7 @@ class LockAopAspectTest {
     @Test
     void lockAndUnlock_evenIfThrow() throws Throwable {
         //given (parameter)
+        givenLockedMethod("lockedMethod");
         ArgumentCaptor<String> lockArgumentCaptor =
                 ArgumentCaptor.forClass(String.class);
 
@@ -78,12 +106,178 @@ class LockAopAspectTest {
 
         //then (assertEquals)
         verify(lockService, times(1))
-                .lock(lockArgumentCaptor.capture());
+                .lock(lockArgumentCaptor.capture(), any(LockPolicy.class));
 
         verify(lockService, times(1))
-                .unlock(unlockArgumentCaptor.capture());
+                .unlock(unlockArgumentCaptor.capture(), any(LockPolicy.class));
 
         assertEquals("54321",lockArgumentCaptor.getValue());
         assertEquals("54321",unlockArgumentCaptor.getValue());
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void resolveLockPolicyFromAnnotation() throws Throwable {
+        //given (parameter)
+        givenLockedMethod("fairLockedMethod");
+        ArgumentCaptor<LockPolicy> policyArgumentCaptor =
+                ArgumentCaptor.forClass(LockPolicy.class);
+
+        UseBalance.Request request =
+                new UseBalance.Request(123L,"1234",1000L);
+
+        //when (method)
+        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        //then (assertEquals)
+        verify(lockService, times(2))
+                .lock(eq("1234"), policyArgumentCaptor.capture());
+
+        assertEquals(3000L, policyArgumentCaptor.getValue().getWaitTime());
+        assertEquals(-1L, policyArgumentCaptor.getValue().getLeaseTime());
+        assertTrue(policyArgumentCaptor.getValue().isFair());
+        // 두 번째 호출은 캐시된 같은 정책을 사용
+        assertSame(policyArgumentCaptor.getAllValues().get(0),
+                policyArgumentCaptor.getAllValues().get(1));
+    }
+
+    @Test
+    void mailboxModeSkipsLock() throws Throwable {
+        //given (parameter)
+        givenLockedMethod("lockedMethod");
+        ReflectionTestUtils.setField(lockAopAspect, "concurrencyMode",
+                ConcurrencyMode.MAILBOX);
+        given(accountMailboxExecutor.submit(eq("1234"), any(LockPolicy.class), any()))
+                .willReturn(CompletableFuture.completedFuture("result"));
+
+        UseBalance.Request request =
+                new UseBalance.Request(123L,"1234",1000L);
+
+        //when (method)
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        //then (assertEquals)
+        assertEquals("result", result);
+        verify(lockService, never()).lock(anyString(), any(LockPolicy.class));
+    }
+
+    @Test
+    void asyncLockAndUnlock() throws Throwable {
+        //given (parameter)
+        givenLockedMethod("asyncLockedMethod");
+        given(lockService.lockAsync(eq("1234"), any(LockPolicy.class)))
+                .willReturn(CompletableFuture.completedFuture(-1L));
+        willAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).given(transactionExecutor).execute(any());
+        given(proceedingJoinPoint.proceed())
+                .willReturn(CompletableFuture.completedFuture("result"));
+
+        UseBalance.Request request =
+                new UseBalance.Request(123L,"1234",1000L);
+
+        //when (method)
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        //then (assertEquals)
+        assertEquals("result", ((CompletableFuture<?>) result).get());
+        verify(lockService, never()).lock(anyString(), any(LockPolicy.class));
+        verify(lockService, times(1))
+                .unlockAsync(eq("1234"), any(LockPolicy.class), eq(-1L));
+    }
+
+    @Test
+    void asyncLeaseSpentInExecutorQueueDoesNotProceed() throws Throwable {
+        //given (parameter)
+        givenLockedMethod("asyncLockedMethod");
+        // 큐에서 기다리는 동안 lease(15000ms) 를 거의 다 쓴 것과 같은 상황
+        ReflectionTestUtils.setField(lockAopAspect, "minRemainingLeaseMillis", 20000L);
+        given(lockService.lockAsync(eq("1234"), any(LockPolicy.class)))
+                .willReturn(CompletableFuture.completedFuture(-1L));
+        willAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).given(transactionExecutor).execute(any());
+
+        UseBalance.Request request =
+                new UseBalance.Request(123L,"1234",1000L);
+
+        //when (method)
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        //then (assertEquals)
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> ((CompletableFuture<?>) result).get());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(lockService, times(1))
+                .unlockAsync(eq("1234"), any(LockPolicy.class), eq(-1L));
+    }
+
+    @Test
+    void asyncLockFailureDoesNotProceed() throws Throwable {
+        //given (parameter)
+        givenLockedMethod("asyncLockedMethod");
+        given(lockService.lockAsync(eq("1234"), any(LockPolicy.class)))
+                .willReturn(CompletableFuture.failedFuture(
+                        new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)));
+
+        UseBalance.Request request =
+                new UseBalance.Request(123L,"1234",1000L);
+
+        //when (method)
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        //then (assertEquals)
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> ((CompletableFuture<?>) result).get());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(proceedingJoinPoint, never()).proceed();
+    }
+
+    @Test
+    void optimisticModeRetriesWithoutLock() throws Throwable {
+        //given (parameter)
+        givenLockedMethod("lockedMethod");
+        ReflectionTestUtils.setField(lockAopAspect, "concurrencyMode",
+                ConcurrencyMode.OPTIMISTIC);
+        given(optimisticRetryExecutor.execute(any()))
+                .willReturn("result");
+
+        UseBalance.Request request =
+                new UseBalance.Request(123L,"1234",1000L);
+
+        //when (method)
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        //then (assertEquals)
+        assertEquals("result", result);
+        verify(lockService, never()).lock(anyString(), any(LockPolicy.class));
+        verify(lockService, never()).unlock(anyString(), any(LockPolicy.class));
+    }
+
+    private void givenLockedMethod(String name) throws NoSuchMethodException {
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getMethod())
+                .willReturn(LockedTarget.class.getDeclaredMethod(name));
+    }
+
+    static class LockedTarget {
+        @AccountLock
+        void lockedMethod() {
+        }
+
+        @AccountLock(tryLockTime = 3000L, leaseTime = -1L, fair = true)
+        void fairLockedMethod() {
+        }
+
+        @AccountLock
+        CompletableFuture<String> asyncLockedMethod() {
+            return CompletableFuture.completedFuture("result");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.account.service;
+
+import com.example.account.dto.LockMetricsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LockMetricsTest {
+    private final LockMetrics lockMetrics = new LockMetrics();
+
+    @Test
+     void countersAndHistograms(){
+     //given (parameter)
+        for (int i = 0; i < 98; i++) {
+            lockMetrics.recordAcquired("ACLK:1000000000", TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        lockMetrics.recordTimeout("ACLK:1000000000", TimeUnit.MILLISECONDS.toNanos(1000));
+        lockMetrics.recordTimeout("ACLK:1000000000", TimeUnit.MILLISECONDS.toNanos(1000));
+        lockMetrics.recordReleased(TimeUnit.MILLISECONDS.toNanos(40));
+        lockMetrics.recordUnlockFailure();
+
+     //when (method)
+        LockMetricsResponse response = lockMetrics.snapshot(10);
+
+     //then (assertEquals)
+        assertEquals(98, response.getAcquired());
+        assertEquals(2, response.getTimeouts());
+        assertEquals(1, response.getUnlockFailures());
+        assertEquals(100, response.getAcquireLatency().getCount());
+        assertEquals(5, response.getAcquireLatency().getP50Millis());
+        assertEquals(1000, response.getAcquireLatency().getP99Millis());
+        assertEquals(1000, response.getAcquireLatency().getMaxMillis());
+        assertEquals(50, response.getHoldTime().getP50Millis());
+     }
+
+     @Test
+      void hotKeysAreSortedByAttempts(){
+      //given (parameter)
+         lockMetrics.recordAcquired("ACLK:1000000001", 0L);
+         lockMetrics.recordAcquired("ACLK:1000000002", 0L);
+         lockMetrics.recordAcquired("ACLK:1000000002", 0L);
+         lockMetrics.recordTimeout("ACLK:1000000002", 0L);
+         lockMetrics.recordError("ACLK:1000000003");
+         lockMetrics.recordError("ACLK:1000000003");
+
+      //when (method)
+         LockMetricsResponse response = lockMetrics.snapshot(2);
+
+      //then (assertEquals)
+         assertEquals(2, response.getHotKeys().size());
+         assertEquals("ACLK:1000000002", response.getHotKeys().get(0).getKey());
+         assertEquals(3, response.getHotKeys().get(0).getAttempts());
+         assertEquals("ACLK:1000000003", response.getHotKeys().get(1).getKey());
+      }
+
+     @Test
+      void decayEvictsDownToLowWaterMark(){
+      //given (parameter)
+         //모든 key 의 값이 0 이 되지 않아도 정리할 때마다 7500개까지 줄어야 한다
+         for (int i = 0; i < 10; i++) {
+             lockMetrics.recordAcquired("ACLK:hot", 0L);
+         }
+         for (int i = 0; i < 9_999; i++) {
+             lockMetrics.recordAcquired("ACLK:" + i, 0L);
+             lockMetrics.recordAcquired("ACLK:" + i, 0L);
+         }
+
+      //when (method)
+         lockMetrics.recordAcquired("ACLK:new", 0L);
+         LockMetricsResponse response = lockMetrics.snapshot(Integer.MAX_VALUE);
+
+      //then (assertEquals)
+         assertEquals(7_500, response.getHotKeys().size());
+         assertEquals("ACLK:hot", response.getHotKeys().get(0).getKey());
+         assertEquals(5, response.getHotKeys().get(0).getAttempts());
+      }
+}
@@ -1,7 +1,9 @@
 package com.example.account.service;
 
+import com.example.account.aop.LockPolicy;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LockWaitType;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -9,10 +11,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
@@ -22,6 +33,9 @@ class LockServiceTest {
     @Mock
     private RLock rLock;
 
+    @Mock
+    private LockMetrics lockMetrics;
+
     @InjectMocks
     private LockService lockService;
 
@@ -56,7 +70,92 @@ class LockServiceTest {
 
          //then (assertEquals)
          assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+         verify(lockMetrics, times(1)).recordTimeout(eq("ACLK:123"), anyLong());
+      }
+
+
+
+     @Test
+      void sameNodeContenderWaitsOnLocalLock() throws Exception {
+      //given (parameter)
+         given(redissonClient.getLock(anyString()))
+                 .willReturn(rLock);
+         given(rLock.tryLock(anyLong(),anyLong(),any()))
+                 .willReturn(true);
+         lockService.lock("123");
+
+      //when (method)
+         ExecutorService executor = Executors.newSingleThreadExecutor();
+         Future<?> contender = executor.submit(() -> lockService.lock("123"));
+         ExecutionException exception = assertThrows(ExecutionException.class,
+                 contender::get);
+         executor.shutdown();
+
+      //then (assertEquals)
+         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                 ((AccountException) exception.getCause()).getErrorCode());
+         verify(redissonClient, times(1)).getLock(anyString());
+      }
+
+     @Test
+      void releaseLocalLockWhenRedisLockFails() throws Exception {
+      //given (parameter)
+         given(redissonClient.getLock(anyString()))
+                 .willReturn(rLock);
+         given(rLock.tryLock(anyLong(),anyLong(),any()))
+                 .willReturn(false, true);
+
+      //when (method)
+         assertThrows(AccountException.class, () -> lockService.lock("123"));
+
+         ExecutorService executor = Executors.newSingleThreadExecutor();
+         Future<?> next = executor.submit(() -> lockService.lock("123"));
+
+      //then (assertEquals)
+         assertDoesNotThrow(() -> next.get());
+         executor.shutdown();
       }
 
 
+     @Test
+      void asyncContenderQueuesBehindSameNodeHolder() throws Exception {
+      //given (parameter)
+         given(redissonClient.getLock(anyString()))
+                 .willReturn(rLock);
+         given(rLock.tryLock(anyLong(),anyLong(),any()))
+                 .willReturn(true);
+         given(rLock.tryLockAsync(anyLong(),anyLong(),any(),anyLong()))
+                 .willReturn(new CompletableFutureWrapper<>(true));
+         lockService.lock("123");
+
+      //when (method)
+         CompletableFuture<Long> contender = lockService.lockAsync("123", LockPolicy.DEFAULT);
+         boolean waitedOnLocalLock = !contender.isDone();
+         lockService.unlock("123");
+
+      //then (assertEquals)
+         assertTrue(waitedOnLocalLock);
+         assertTrue(contender.get() < 0);
+         verify(rLock, times(1)).tryLockAsync(anyLong(),anyLong(),any(),anyLong());
+      }
+
+     @Test
+      void fairPolicyUsesFairLock() throws InterruptedException {
+      //given (parameter)
+         given(redissonClient.getFairLock(anyString()))
+                 .willReturn(rLock);
+         given(rLock.tryLock(anyLong(),anyLong(),any()))
+                 .willReturn(true);
+
+      //when (method)
+         lockService.lock("123",
+                 new LockPolicy(3000L, -1L, true, LockWaitType.PUB_SUB));
+         lockService.unlock("123",
+                 new LockPolicy(3000L, -1L, true, LockWaitType.PUB_SUB));
+
+      //then (assertEquals)
+         verify(redissonClient, times(2)).getFairLock("ACLK:123");
+         verify(rLock, times(1)).unlock();
+      }
+
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTest {
+    private final OptimisticRetryExecutor optimisticRetryExecutor = new OptimisticRetryExecutor();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(optimisticRetryExecutor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(optimisticRetryExecutor, "initialBackoffMillis", 1L);
+        ReflectionTestUtils.setField(optimisticRetryExecutor, "maxBackoffMillis", 2L);
+    }
+
+    @Test
+     void retryUntilNoConflict() throws Throwable {
+     //given (parameter)
+        AtomicInteger attempts = new AtomicInteger();
+
+     //when (method)
+        Object result = optimisticRetryExecutor.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return "success";
+        });
+
+     //then (assertEquals)
+        assertEquals("success", result);
+        assertEquals(3, attempts.get());
+     }
+
+    @Test
+     void failAfterMaxAttempts() {
+     //given (parameter)
+        AtomicInteger attempts = new AtomicInteger();
+
+     //when (method)
+        AccountException exception = assertThrows(AccountException.class,
+                () -> optimisticRetryExecutor.execute(() -> {
+                    attempts.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Account", 1L);
+                }));
+
+     //then (assertEquals)
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(3, attempts.get());
+     }
+
+    @Test
+     void accountExceptionIsNotRetried() {
+     //given (parameter)
+        AtomicInteger attempts = new AtomicInteger();
+
+     //when (method)
+        AccountException exception = assertThrows(AccountException.class,
+                () -> optimisticRetryExecutor.execute(() -> {
+                    attempts.incrementAndGet();
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }));
+
+     //then (assertEquals)
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(1, attempts.get());
+     }
+}
@@ -0,0 +1,129 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LockWaitType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLockReactive;
+import org.redisson.api.RedissonReactiveClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveLockServiceTest {
+    @Mock
+    private RedissonReactiveClient redissonReactiveClient;
+
+    @Mock
+    private RLockReactive rLock;
+
+    @Mock
+    private LockMetrics lockMetrics;
+
+    @InjectMocks
+    private ReactiveLockService lockService;
+
+    @Test
+    void actionRunsWhileLockIsHeld() {
+        //given (parameter)
+        given(redissonReactiveClient.getLock("ACLK:1234567890"))
+                .willReturn(rLock);
+        ArgumentCaptor<Long> ownerCaptor = ArgumentCaptor.forClass(Long.class);
+        given(rLock.tryLock(eq(1000L), eq(5000L), eq(TimeUnit.MILLISECONDS), ownerCaptor.capture()))
+                .willReturn(Mono.just(true));
+        given(rLock.unlock(anyLong()))
+                .willReturn(Mono.empty());
+
+        //when (method)
+        StepVerifier.create(lockService.executeWithLock("1234567890", policy(false),
+                        Mono.just("done")))
+                //then (assertEquals)
+                .expectNext("done")
+                .verifyComplete();
+
+        // 잡을 때와 같은 owner id 로 풀어야 함
+        verify(rLock).unlock(ownerCaptor.getValue());
+        verify(lockMetrics).recordAcquired(eq("ACLK:1234567890"), anyLong());
+    }
+
+    @Test
+    void lockIsReleasedWhenActionFails() {
+        //given (parameter)
+        given(redissonReactiveClient.getFairLock("ACLK:1234567890"))
+                .willReturn(rLock);
+        given(rLock.tryLock(eq(1000L), eq(5000L), eq(TimeUnit.MILLISECONDS), anyLong()))
+                .willReturn(Mono.just(true));
+        given(rLock.unlock(anyLong()))
+                .willReturn(Mono.empty());
+
+        //when (method)
+        StepVerifier.create(lockService.executeWithLock("1234567890", policy(true),
+                        Mono.error(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE))))
+                //then (assertEquals)
+                .verifyErrorSatisfies(e -> assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                        ((AccountException) e).getErrorCode()));
+
+        verify(rLock).unlock(anyLong());
+    }
+
+    @Test
+    void failGetLock() {
+        //given (parameter)
+        given(redissonReactiveClient.getLock("ACLK:1234567890"))
+                .willReturn(rLock);
+        given(rLock.tryLock(eq(1000L), eq(5000L), eq(TimeUnit.MILLISECONDS), anyLong()))
+                .willReturn(Mono.just(false));
+
+        //when (method)
+        StepVerifier.create(lockService.executeWithLock("1234567890", policy(false),
+                        Mono.just("never")))
+                //then (assertEquals)
+                .verifyErrorSatisfies(e -> {
+                    assertTrue(e instanceof AccountException);
+                    assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, ((AccountException) e).getErrorCode());
+                });
+
+        verify(rLock, never()).unlock(anyLong());
+        verify(lockMetrics).recordTimeout(eq("ACLK:1234567890"), anyLong());
+    }
+
+    @Test
+    void unlockFailureDoesNotFailResponse() {
+        //given (parameter)
+        given(redissonReactiveClient.getLock("ACLK:1234567890"))
+                .willReturn(rLock);
+        given(rLock.tryLock(eq(1000L), eq(5000L), eq(TimeUnit.MILLISECONDS), anyLong()))
+                .willReturn(Mono.just(true));
+        given(rLock.unlock(anyLong()))
+                .willReturn(Mono.error(new IllegalStateException("redis down")));
+
+        //when (method)
+        StepVerifier.create(lockService.executeWithLock("1234567890", policy(false),
+                        Mono.just("done")))
+                //then (assertEquals)
+                .expectNext("done")
+                .verifyComplete();
+
+        verify(lockMetrics).recordUnlockFailure();
+    }
+
+    private static LockPolicy policy(boolean fair) {
+        return new LockPolicy(1000L, 5000L, fair, LockWaitType.PUB_SUB);
+    }
+}
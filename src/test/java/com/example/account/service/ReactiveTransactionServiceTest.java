@@ -0,0 +1,219 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.ReactiveAccountRepository;
+import com.example.account.repository.ReactiveAccountUserRepository;
+import com.example.account.repository.ReactiveTransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTransactionServiceTest {
+    @Mock
+    private ReactiveAccountRepository accountRepository;
+
+    @Mock
+    private ReactiveAccountUserRepository accountUserRepository;
+
+    @Mock
+    private ReactiveTransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private AccountBalanceCache accountBalanceCache;
+
+    @Mock
+    private TransactionalOperator reactiveTransactionalOperator;
+
+    @InjectMocks
+    private ReactiveTransactionService transactionService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        //트랜잭션 경계는 통과시키기만 한다
+        given(reactiveTransactionalOperator.transactional(any(Mono.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void successUseBalance() {
+        //given (parameter)
+        given(accountUserRepository.existsById(12L))
+                .willReturn(Mono.just(true));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Mono.just(account(12L, 10000L, AccountStatus.IN_USE)));
+        given(accountRepository.debit(eq(1L), eq(1000L), any()))
+                .willReturn(Mono.just(1L));
+        given(transactionIdGenerator.nextId())
+                .willReturn("0000000000001");
+        ArgumentCaptor<TransactionDto> captor = ArgumentCaptor.forClass(TransactionDto.class);
+        given(transactionRepository.insert(eq(1L), captor.capture()))
+                .willReturn(Mono.just(1L));
+
+        //when (method)
+        StepVerifier.create(transactionService.useBalance(12L, "1000000012", 1000L))
+                //then (assertEquals)
+                .assertNext(transaction -> {
+                    assertEquals(TransactionType.USE, transaction.getTransactionType());
+                    assertEquals(TransactionResultType.S, transaction.getTransactionResultType());
+                    assertEquals(9000L, transaction.getBalanceSnapshot());
+                    assertEquals("0000000000001", transaction.getTransactionId());
+                })
+                .verifyComplete();
+
+        assertEquals(9000L, captor.getValue().getBalanceSnapshot());
+        verify(accountBalanceCache).invalidateAfterCommit(12L);
+    }
+
+    @Test
+    void useBalance_UserNotFound() {
+        //given (parameter)
+        given(accountUserRepository.existsById(12L))
+                .willReturn(Mono.just(false));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Mono.just(account(12L, 10000L, AccountStatus.IN_USE)));
+
+        //when (method)
+        StepVerifier.create(transactionService.useBalance(12L, "1000000012", 1000L))
+                //then (assertEquals)
+                .verifyErrorSatisfies(e -> assertErrorCode(ErrorCode.USER_NOT_FOUND, e));
+
+        verify(accountRepository, never()).debit(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void useBalance_ExceedBalance() {
+        //given (parameter)
+        given(accountUserRepository.existsById(12L))
+                .willReturn(Mono.just(true));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Mono.just(account(12L, 100L, AccountStatus.IN_USE)));
+
+        //when (method)
+        StepVerifier.create(transactionService.useBalance(12L, "1000000012", 1000L))
+                //then (assertEquals)
+                .verifyErrorSatisfies(e -> assertErrorCode(ErrorCode.AMOUNT_EXCEED_BALANCE, e));
+
+        verify(accountRepository, never()).debit(anyLong(), anyLong(), any());
+        verify(accountBalanceCache, never()).invalidateAfterCommit(anyLong());
+    }
+
+    @Test
+    void useBalance_ConcurrentDebitFails() {
+        //given (parameter)
+        given(accountUserRepository.existsById(12L))
+                .willReturn(Mono.just(true));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Mono.just(account(12L, 10000L, AccountStatus.IN_USE)));
+        given(accountRepository.debit(eq(1L), eq(1000L), any()))
+                .willReturn(Mono.just(0L));
+
+        //when (method)
+        StepVerifier.create(transactionService.useBalance(12L, "1000000012", 1000L))
+                //then (assertEquals)
+                .verifyErrorSatisfies(e -> assertErrorCode(ErrorCode.ACCOUNT_TRANSACTION_LOCK, e));
+
+        verify(transactionRepository, never()).insert(anyLong(), any());
+    }
+
+    @Test
+    void successCancelBalance() {
+        //given (parameter)
+        given(transactionRepository.findByTransactionId("0000000000001"))
+                .willReturn(Mono.just(transaction("1000000012", 1000L)));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Mono.just(account(12L, 9000L, AccountStatus.IN_USE)));
+        given(accountRepository.credit(eq(1L), eq(1000L), any()))
+                .willReturn(Mono.just(1L));
+        given(transactionIdGenerator.nextId())
+                .willReturn("0000000000002");
+        given(transactionRepository.insert(eq(1L), any()))
+                .willReturn(Mono.just(1L));
+
+        //when (method)
+        StepVerifier.create(transactionService.cancelBalance("0000000000001", "1000000012", 1000L))
+                //then (assertEquals)
+                .assertNext(transaction -> {
+                    assertEquals(TransactionType.CANCEL, transaction.getTransactionType());
+                    assertEquals(10000L, transaction.getBalanceSnapshot());
+                })
+                .verifyComplete();
+
+        verify(accountBalanceCache).invalidateAfterCommit(12L);
+    }
+
+    @Test
+    void cancelBalance_CancelMustFully() {
+        //given (parameter)
+        given(transactionRepository.findByTransactionId("0000000000001"))
+                .willReturn(Mono.just(transaction("1000000012", 1000L)));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Mono.just(account(12L, 9000L, AccountStatus.IN_USE)));
+
+        //when (method)
+        StepVerifier.create(transactionService.cancelBalance("0000000000001", "1000000012", 500L))
+                //then (assertEquals)
+                .verifyErrorSatisfies(e -> assertErrorCode(ErrorCode.CANCEL_MUST_FULLY, e));
+
+        verify(accountRepository, never()).credit(anyLong(), anyLong(), any());
+    }
+
+    private static Account account(Long userId, Long balance, AccountStatus accountStatus) {
+        AccountUser accountUser = new AccountUser();
+        accountUser.setId(userId);
+
+        Account account = Account.builder()
+                .accountUser(accountUser)
+                .accountNumber("1000000012")
+                .accountStatus(accountStatus)
+                .balance(balance)
+                .build();
+        account.setId(1L);
+        return account;
+    }
+
+    private static TransactionDto transaction(String accountNumber, Long amount) {
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(amount)
+                .transactionId("0000000000001")
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static void assertErrorCode(ErrorCode errorCode, Throwable e) {
+        assertTrue(e instanceof AccountException);
+        assertEquals(errorCode, ((AccountException) e).getErrorCode());
+    }
+}
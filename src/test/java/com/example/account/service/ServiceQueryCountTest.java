@@ -0,0 +1,208 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * 서비스 메소드별로 실행되는 SQL 수를 고정해두는 테스트
+ * 연관관계가 다시 EAGER 가 되거나 fetch 계획이 바뀌어 N+1 이 생기면 여기서 깨진다
+ * */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({AccountService.class, TransactionService.class})
+class ServiceQueryCountTest {
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @MockBean
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @MockBean
+    private TransactionIdGenerator transactionIdGenerator;
+
+    //캐시는 항상 미스가 나도록 해서 DB 로 나가는 쿼리만 센다
+    @MockBean
+    private TransactionCache transactionCache;
+
+    @MockBean
+    private AccountBalanceCache accountBalanceCache;
+
+    @MockBean
+    private AccountUserCache accountUserCache;
+
+    private static final String TRANSACTION_ID = TransactionIdConverter.format(42L);
+
+    private Statistics statistics;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        //V2 마이그레이션으로 들어간 사용자를 사용
+        AccountUser user = accountUserRepository.findById(1L).get();
+
+        account = accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000001")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(0L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        transactionRepository.save(Transaction.builder()
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .account(account)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId(TRANSACTION_ID)
+                .transactedAt(LocalDateTime.now())
+                .build());
+
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        given(accountBalanceCache.get(anyLong(), any()))
+                .willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        given(accountUserCache.findById(anyLong()))
+                .willAnswer(invocation -> accountUserRepository.findById(invocation.getArgument(0)));
+        given(accountUserCache.existsById(anyLong()))
+                .willAnswer(invocation -> accountUserRepository.existsById(invocation.getArgument(0)));
+        given(transactionCache.get(anyString()))
+                .willAnswer(invocation -> transactionRepository
+                        .findDtoByTransactionId(invocation.getArgument(0)));
+
+        statistics = testEntityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void queryTransactionRunsOneStatement() {
+        //when (method)
+        transactionService.queryTransaction(TRANSACTION_ID);
+
+        //then (assertEquals)
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getAccountRunsOneStatement() {
+        //when (method)
+        accountService.getAccount(account.getId());
+
+        //then (assertEquals)
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+
+    @Test
+    void getAccountByUserIdDoesNotGrowWithAccounts() {
+        //when (method)
+        accountService.getAccountByUserId(1L);
+
+        //then (assertEquals)
+        // 계좌가 있으면 projection 조회 한 번으로 끝남
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void useBalanceDoesNotFetchAssociations() {
+        //when (method)
+        transactionService.useBalance(1L, "1000000000", 1000L);
+        testEntityManager.flush();
+
+        //then (assertEquals)
+        assertEquals(0, statistics.getEntityFetchCount());
+        assertEquals(2, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void cancelBalanceDoesNotFetchAssociations() {
+        //when (method)
+        transactionService.cancelBalance(TRANSACTION_ID, "1000000000", 1000L);
+        testEntityManager.flush();
+
+        //then (assertEquals)
+        // 원거래는 projection 으로 읽고 엔티티로는 계좌만 읽음
+        assertEquals(0, statistics.getEntityFetchCount());
+        assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void bulkInsertIsBatched() {
+        //given (parameter)
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            transactions.add(Transaction.builder()
+                    .transactionType(TransactionType.USE)
+                    .transactionResultType(TransactionResultType.F)
+                    .account(testEntityManager.getEntityManager().getReference(Account.class, account.getId()))
+                    .amount(1000L)
+                    .balanceSnapshot(10000L)
+                    .transactionId(TransactionIdConverter.format(100L + i))
+                    .transactedAt(LocalDateTime.now())
+                    .build());
+        }
+
+        //when (method)
+        transactionRepository.saveAll(transactions);
+        testEntityManager.flush();
+
+        //then (assertEquals)
+        // sequence 는 50개 단위로 예약하므로 많아야 한 번, insert 는 batch 한 번
+        assertEquals(20, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 2);
+    }
+}
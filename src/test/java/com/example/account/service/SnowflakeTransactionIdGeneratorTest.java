@@ -0,0 +1,139 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionIdConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SnowflakeTransactionIdGeneratorTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RAtomicLong nodeCounter;
+
+    @Mock
+    private RBucket<String> nodeLease;
+
+    @InjectMocks
+    private SnowflakeTransactionIdGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(generator, "nodeId", 5L);
+    }
+
+    @Test
+    void idsAreTimeOrderedAndCarryNodeId() {
+        //when (method)
+        long first = generator.nextLongId();
+        long second = generator.nextLongId();
+
+        //then (assertEquals)
+        assertTrue(second > first);
+        assertEquals(5L, (first >>> 12) & 1023);
+    }
+
+    @Test
+    void renderedIdsSortLikeNumericIds() {
+        //when (method)
+        String first = generator.nextId();
+        String second = generator.nextId();
+
+        //then (assertEquals)
+        assertEquals(13, first.length());
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(TransactionIdConverter.parse(first) < TransactionIdConverter.parse(second));
+    }
+
+    @Test
+    void nodeIdIsLeasedFromRedisWhenNotConfigured() {
+        //given (parameter)
+        ReflectionTestUtils.setField(generator, "nodeId", -1L);
+        given(redissonClient.getAtomicLong("TXID:NODE"))
+                .willReturn(nodeCounter);
+        given(nodeCounter.getAndIncrement())
+                .willReturn(1024L);
+        given(redissonClient.<String>getBucket(startsWith("TXID:NODE:"), any(Codec.class)))
+                .willReturn(nodeLease);
+        //0번은 살아있는 다른 노드가 임대 중
+        given(nodeLease.setIfAbsent(anyString(), any(Duration.class)))
+                .willReturn(false, true);
+
+        //when (method)
+        generator.assignNodeId();
+
+        //then (assertEquals)
+        assertEquals(1L, (generator.nextLongId() >>> 12) & 1023);
+        verify(redissonClient).getBucket(eq("TXID:NODE:0"), any(Codec.class));
+        verify(redissonClient).getBucket(eq("TXID:NODE:1"), any(Codec.class));
+    }
+
+    @Test
+    void startupFailsWhenEveryNodeIdIsLeased() {
+        //given (parameter)
+        ReflectionTestUtils.setField(generator, "nodeId", -1L);
+        given(redissonClient.getAtomicLong("TXID:NODE"))
+                .willReturn(nodeCounter);
+        given(redissonClient.<String>getBucket(startsWith("TXID:NODE:"), any(Codec.class)))
+                .willReturn(nodeLease);
+        given(nodeLease.setIfAbsent(anyString(), any(Duration.class)))
+                .willReturn(false);
+
+        //when (method)
+        assertThrows(IllegalStateException.class, () -> generator.assignNodeId());
+
+        //then (assertEquals)
+        verify(nodeLease, times(1024)).setIfAbsent(anyString(), any(Duration.class));
+    }
+
+    @Test
+    void malformedIdParsesToNull() {
+        //then (assertEquals)
+        assertNull(TransactionIdConverter.parse("transactionId"));
+        assertNull(TransactionIdConverter.parse("ZZZZZZZZZZZZZ"));
+        assertEquals(42L, TransactionIdConverter.parse(TransactionIdConverter.format(42L)));
+        assertEquals(Long.MAX_VALUE,
+                TransactionIdConverter.parse(TransactionIdConverter.format(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void concurrentCallersNeverGetSameId() throws Exception {
+        //given (parameter)
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        //when (method)
+        for (int i = 0; i < 8; i++) {
+            callers.execute(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    ids.add(generator.nextLongId());
+                }
+            });
+        }
+        callers.shutdown();
+
+        //then (assertEquals)
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(80000, ids.size());
+    }
+}
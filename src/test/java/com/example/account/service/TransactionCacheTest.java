@@ -0,0 +1,147 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionCacheTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private RBucket<TransactionDto> bucket;
+
+    private final RFuture<Void> setFuture = new CompletableFutureWrapper<>((Void) null);
+
+    private TransactionCache transactionCache;
+
+    @BeforeEach
+    void setUp() {
+        transactionCache = new TransactionCache(
+                redissonClient, transactionRepository, new ObjectMapper());
+        transactionCache.init();
+    }
+
+    @Test
+    void loadsFromDatabaseOnceAndFillsBothTiers() {
+        //given (parameter)
+        TransactionDto transactionDto = transactionDto();
+        given(redissonClient.<TransactionDto>getBucket(eq("TXN:0000000000001"), any(Codec.class)))
+                .willReturn(bucket);
+        given(bucket.setAsync(any(), anyLong(), any())).willReturn(setFuture);
+        given(transactionRepository.findDtoByTransactionId("0000000000001"))
+                .willReturn(Optional.of(transactionDto));
+
+        //when (method)
+        Optional<TransactionDto> first = transactionCache.get("0000000000001");
+        Optional<TransactionDto> second = transactionCache.get("0000000000001");
+
+        //then (assertEquals)
+        assertSame(transactionDto, first.get());
+        assertSame(transactionDto, second.get());
+        verify(transactionRepository, times(1)).findDtoByTransactionId("0000000000001");
+        verify(bucket).setAsync(transactionDto, 86400L, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void redisHitSkipsDatabase() {
+        //given (parameter)
+        TransactionDto transactionDto = transactionDto();
+        given(redissonClient.<TransactionDto>getBucket(anyString(), any(Codec.class)))
+                .willReturn(bucket);
+        given(bucket.get()).willReturn(transactionDto);
+
+        //when (method)
+        Optional<TransactionDto> result = transactionCache.get("0000000000001");
+
+        //then (assertEquals)
+        assertEquals("1000000000", result.get().getAccountNumber());
+        verify(transactionRepository, times(0)).findDtoByTransactionId(anyString());
+    }
+
+    @Test
+    void redisFailureFallsBackToDatabase() {
+        //given (parameter)
+        given(redissonClient.<TransactionDto>getBucket(anyString(), any(Codec.class)))
+                .willThrow(new IllegalStateException("redis down"));
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.of(transactionDto()));
+
+        //when (method)
+        Optional<TransactionDto> result = transactionCache.get("0000000000001");
+
+        //then (assertEquals)
+        assertTrue(result.isPresent());
+    }
+
+    @Test
+    void missingTransactionIsNotCached() {
+        //given (parameter)
+        given(redissonClient.<TransactionDto>getBucket(anyString(), any(Codec.class)))
+                .willReturn(bucket);
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+
+        //when (method)
+        transactionCache.get("0000000000001");
+        Optional<TransactionDto> result = transactionCache.get("0000000000001");
+
+        //then (assertEquals)
+        assertFalse(result.isPresent());
+        verify(transactionRepository, times(2)).findDtoByTransactionId(anyString());
+    }
+
+    @Test
+    void putWithoutTransactionIsVisibleImmediately() {
+        //given (parameter)
+        TransactionDto transactionDto = transactionDto();
+        given(redissonClient.<TransactionDto>getBucket(anyString(), any(Codec.class)))
+                .willReturn(bucket);
+        given(bucket.setAsync(any(), anyLong(), any())).willReturn(setFuture);
+
+        //when (method)
+        transactionCache.putAfterCommit(transactionDto);
+        Optional<TransactionDto> result = transactionCache.get("0000000000001");
+
+        //then (assertEquals)
+        assertSame(transactionDto, result.get());
+        verify(bucket, times(0)).get();
+    }
+
+    private static TransactionDto transactionDto() {
+        return TransactionDto.builder()
+                .accountNumber("1000000000")
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId("0000000000001")
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
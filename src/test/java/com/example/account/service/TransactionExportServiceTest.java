@@ -0,0 +1,147 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 1, 2, 0, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private TransactionExportService transactionExportService;
+
+    @BeforeEach
+    void setUp() {
+        transactionExportService = new TransactionExportService(transactionRepository, objectMapper);
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        //given (parameter)
+        given(transactionRepository.streamForExport(FROM, TO, null))
+                .willReturn(Stream.of(transaction("txA", "1000000000"), transaction("txB", "1000000001")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when (method)
+        long count = transactionExportService.export(ExportFormat.NDJSON, FROM, TO, null, false, out);
+
+        //then (assertEquals)
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(2L, count);
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("txA", first.get("transactionId").asText());
+        assertEquals("1000000000", first.get("accountNumber").asText());
+        assertEquals("txB", objectMapper.readTree(lines[1]).get("transactionId").asText());
+    }
+
+    @Test
+    void exportCsvEscapesValues() throws Exception {
+        //given (parameter)
+        given(transactionRepository.streamForExport(FROM, TO, "1000000000"))
+                .willReturn(Stream.of(transaction("tx,\"A\"", "1000000000")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when (method)
+        long count = transactionExportService.export(ExportFormat.CSV, FROM, TO, "1000000000", false, out);
+
+        //then (assertEquals)
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(1L, count);
+        assertEquals("transactionId,accountNumber,transactionType,transactionResult,amount,balanceSnapshot,transactedAt",
+                lines[0]);
+        assertEquals("\"tx,\"\"A\"\"\",1000000000,USE,S,1000,9000,2024-01-01T09:00", lines[1]);
+    }
+
+    @Test
+    void exportGzip() throws Exception {
+        //given (parameter)
+        given(transactionRepository.streamForExport(any(), any(), isNull()))
+                .willReturn(Stream.of(transaction("txA", "1000000000")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when (method)
+        transactionExportService.export(ExportFormat.NDJSON, FROM, TO, null, true, out);
+
+        //then (assertEquals)
+        String text;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals("txA", objectMapper.readTree(text.trim()).get("transactionId").asText());
+        assertTrue(text.endsWith("\n"));
+    }
+
+    @Test
+    void exportClosesCursor() throws Exception {
+        //given (parameter)
+        boolean[] closed = {false};
+        given(transactionRepository.streamForExport(FROM, TO, null))
+                .willReturn(Stream.of(transaction("txA", "1000000000")).onClose(() -> closed[0] = true));
+
+        //when (method)
+        transactionExportService.export(ExportFormat.CSV, FROM, TO, null, false, new ByteArrayOutputStream());
+
+        //then (assertEquals)
+        verify(transactionRepository).streamForExport(FROM, TO, null);
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    void exportFailed_invalidRange() {
+        //given (parameter)
+        //when (method)
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionExportService.export(ExportFormat.NDJSON, TO, FROM, null, false,
+                        new ByteArrayOutputStream()));
+
+        //then (assertEquals)
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    private static TransactionDto transaction(String transactionId, String accountNumber) {
+        return TransactionDto.builder()
+                .transactionId(transactionId)
+                .accountNumber(accountNumber)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.of(2024, 1, 1, 9, 0))
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdConverter;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionJournalFlusherTest {
+    @Mock
+    private TransactionJournal transactionJournal;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private TransactionJournalFlusher transactionJournalFlusher;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesOnlyCommittedTransactions() throws Exception {
+        //given (parameter)
+        //1번은 롤백됐거나 이미 DB 에 옮겨져서 커밋 표시가 없다
+        TransactionJournal.Entry first = entry(1L, 10L);
+        TransactionJournal.Entry second = entry(2L, 20L);
+        List<TransactionJournal.Entry> batch = Arrays.asList(first, second);
+        given(transactionJournal.drain(anyInt()))
+                .willReturn(batch)
+                .willReturn(Collections.emptyList());
+        given(transactionManager.getTransaction(any()))
+                .willReturn(new SimpleTransactionStatus());
+        given(transactionRepository.findCommittedTransactionIds(anyList()))
+                .willReturn(Collections.singletonList(2L));
+        given(accountRepository.getReferenceById(7L))
+                .willReturn(Account.builder().accountNumber("1000000000").build());
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when (method)
+        int flushed = transactionJournalFlusher.flush();
+
+        //then (assertEquals)
+        assertEquals(2, flushed);
+        verify(transactionRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(TransactionIdConverter.format(2L), captor.getValue().get(0).getTransactionId());
+        verify(transactionRepository).deleteCommitMarks(Collections.singleton(2L));
+        verify(transactionJournal).checkpoint(batch);
+    }
+
+    @Test
+    void failedBatchIsRetriedBeforeNewRecords() throws Exception {
+        //given (parameter)
+        List<TransactionJournal.Entry> batch = Collections.singletonList(entry(1L, 10L));
+        given(transactionJournal.drain(anyInt()))
+                .willReturn(batch)
+                .willReturn(Collections.emptyList());
+        given(transactionManager.getTransaction(any()))
+                .willReturn(new SimpleTransactionStatus());
+        given(transactionRepository.findCommittedTransactionIds(anyList()))
+                .willThrow(new DataAccessResourceFailureException("db down"))
+                .willReturn(Collections.emptyList());
+
+        //when (method)
+        int failed = transactionJournalFlusher.flush();
+        int retried = transactionJournalFlusher.flush();
+
+        //then (assertEquals)
+        assertEquals(0, failed);
+        assertEquals(1, retried);
+        // 실패한 배치를 다시 쓰는 동안에는 journal 에서 새로 꺼내지 않음
+        verify(transactionJournal, times(2)).drain(anyInt());
+        verify(transactionJournal, times(1)).checkpoint(batch);
+    }
+
+    private static TransactionJournal.Entry entry(long transactionId, long offset) {
+        return new TransactionJournal.Entry(TransactionJournalRecord.builder()
+                .transactionId(TransactionIdConverter.format(transactionId))
+                .accountId(7L)
+                .accountNumber("1000000000")
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build(), new TransactionJournal.Position(1L, offset - 10L),
+                new TransactionJournal.Position(1L, offset));
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJournalTest {
+    @TempDir
+    Path directory;
+
+    private TransactionJournal journal;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.stop();
+    }
+
+    @Test
+    void unflushedRecordsAreReplayedAfterRestart() throws Exception {
+        //given (parameter)
+        journal = start();
+        append("tx1", "tx2");
+        journal.stop();
+
+        //when (method)
+        journal = start();
+
+        //then (assertEquals)
+        List<TransactionJournal.Entry> replayed = journal.drain(10);
+        assertEquals(2, replayed.size());
+        assertEquals("tx1", replayed.get(0).getRecord().getTransactionId());
+        assertEquals("tx2", replayed.get(1).getRecord().getTransactionId());
+        assertEquals(TransactionType.USE, replayed.get(0).getRecord().getTransactionType());
+        assertEquals(9000L, replayed.get(0).getRecord().getBalanceSnapshot());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 9, 0, 0, 123_000_000),
+                replayed.get(0).getRecord().getTransactedAt());
+    }
+
+    @Test
+    void checkpointedRecordsAreNotReplayed() throws Exception {
+        //given (parameter)
+        journal = start();
+        append("tx1", "tx2");
+        journal.checkpoint(journal.drain(1));
+        journal.stop();
+
+        //when (method)
+        journal = start();
+
+        //then (assertEquals)
+        List<TransactionJournal.Entry> replayed = journal.drain(10);
+        assertEquals(1, replayed.size());
+        assertEquals("tx2", replayed.get(0).getRecord().getTransactionId());
+    }
+
+    @Test
+    void checkpointRemovesFlushedSegments() throws Exception {
+        //given (parameter)
+        // segment 크기가 1byte 이므로 그룹마다 새 segment 로 넘어감 (tx1 -> 1번, tx2 -> 2번)
+        journal = new TransactionJournal();
+        ReflectionTestUtils.setField(journal, "segmentBytes", 1L);
+        start(journal);
+        append("tx1", "tx2");
+        Path first = segments().get(0);
+
+        //when (method)
+        journal.checkpoint(journal.drain(10));
+
+        //then (assertEquals)
+        // checkpoint 가 있는 2번과 쓰고 있는 3번만 남는다
+        assertFalse(Files.exists(first));
+        assertEquals(2, segments().size());
+        assertEquals(0, journal.getUnflushedCount());
+    }
+
+    @Test
+    void recordIsFlushedOnlyAfterCommit() throws Exception {
+        //given (parameter)
+        journal = start();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            journal.appendBeforeCommit(transaction("0000000000001"));
+            journal.appendBeforeCommit(transaction("0000000000002"));
+            List<TransactionSynchronization> synchronizations =
+                    TransactionSynchronizationManager.getSynchronizations();
+            int unflushedBeforeCommit = journal.getUnflushedCount();
+
+            //when (method)
+            synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            //then (assertEquals)
+            assertEquals(0, unflushedBeforeCommit);
+            List<TransactionJournal.Entry> committed = journal.drain(10);
+            assertEquals(1, committed.size());
+            assertEquals("0000000000001", committed.get(0).getRecord().getTransactionId());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void recordIsReplayedWhenProcessDiesBetweenCommitAndCompletion() throws Exception {
+        //given (parameter)
+        //DB 는 커밋됐지만 afterCompletion 전에 죽은 경우 (커밋 여부는 flusher 가 transaction_commit 으로 확인)
+        journal = start();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            journal.appendBeforeCommit(transaction("0000000000001"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        append("tx2");
+        //뒤의 기록이 먼저 DB 에 쓰여도 checkpoint 가 커밋을 기다리는 기록을 넘지 않는다
+        journal.checkpoint(journal.drain(10));
+        journal.stop();
+
+        //when (method)
+        journal = start();
+
+        //then (assertEquals)
+        List<TransactionJournal.Entry> replayed = journal.drain(10);
+        assertEquals(2, replayed.size());
+        assertEquals("0000000000001", replayed.get(0).getRecord().getTransactionId());
+    }
+
+    @Test
+    void tornTailIsCutOnRecovery() throws Exception {
+        //given (parameter)
+        journal = start();
+        append("tx1");
+        journal.stop();
+        Path segment = segments().get(0);
+        long validSize = Files.size(segment);
+        // 길이만 쓰고 죽은 기록 흉내
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        //when (method)
+        journal = start();
+
+        //then (assertEquals)
+        assertEquals(1, journal.drain(10).size());
+        assertEquals(validSize, Files.size(segment));
+    }
+
+    @Test
+    void corruptedRecordIsNotReplayed() throws Exception {
+        //given (parameter)
+        journal = start();
+        append("tx1");
+        journal.stop();
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x7f;
+        Files.write(segment, bytes);
+
+        //when (method)
+        journal = start();
+
+        //then (assertEquals)
+        assertEquals(0, journal.drain(10).size());
+        assertEquals(0L, Files.size(segment));
+    }
+
+    private TransactionJournal start() throws Exception {
+        return start(new TransactionJournal());
+    }
+
+    private TransactionJournal start(TransactionJournal transactionJournal) throws Exception {
+        ReflectionTestUtils.setField(transactionJournal, "dir", directory.toString());
+        transactionJournal.start();
+        return transactionJournal;
+    }
+
+    private void append(String... transactionIds) throws Exception {
+        for (String transactionId : transactionIds) {
+            journal.append(TransactionJournalRecord.builder()
+                    .transactionId(transactionId)
+                    .accountId(7L)
+                    .accountNumber("1000000000")
+                    .transactionType(TransactionType.USE)
+                    .transactionResultType(TransactionResultType.S)
+                    .amount(1000L)
+                    .balanceSnapshot(9000L)
+                    .transactedAt(LocalDateTime.of(2024, 1, 1, 9, 0, 0, 123_000_000))
+                    .build()).get(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static Transaction transaction(String transactionId) {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .account(Account.builder().id(7L).accountNumber("1000000000").build())
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.of(2024, 1, 1, 9, 0, 0))
+                .build();
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
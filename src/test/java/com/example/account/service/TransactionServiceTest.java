@@ -3,14 +3,18 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionIdConverter;
 
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.TransactionHistoryItem;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
-import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LedgerEntryType;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import org.junit.jupiter.api.DisplayName;
@@ -20,14 +24,20 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -47,7 +57,16 @@ class TransactionServiceTest {
 
 
     @Mock
-    private AccountUserRepository accountUserRepository;
+    private AccountUserCache accountUserCache;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private TransactionCache transactionCache;
+
+    @Mock
+    private AccountBalanceCache accountBalanceCache;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -66,7 +85,7 @@ class TransactionServiceTest {
                 .accountNumber("1000000012").build();
 
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
@@ -103,12 +122,200 @@ class TransactionServiceTest {
      }
 
 
+    @Test
+    @DisplayName("journal 을 쓰면 거래는 insert 하지 않고 journal 에 넘긴다")
+    void useBalance_journaled(){
+        //given (parameter)
+        TransactionJournal transactionJournal = mock(TransactionJournal.class);
+        ReflectionTestUtils.setField(transactionService, "transactionJournal", transactionJournal);
+        AccountUser user = AccountUser.builder()
+                .name("You").build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionIdGenerator.nextId())
+                .willReturn("0000000000042");
+
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when (method)
+        TransactionDto transactionDto = transactionService.useBalance(12L,
+                "1000000012",
+                1000L);
+
+        //then (assertEquals)
+        verify(transactionJournal, times(1)).appendBeforeCommit(captor.capture());
+        verify(transactionRepository, times(1)).markCommitted(TransactionIdConverter.parse("0000000000042"));
+        verify(transactionRepository, never()).save(any());
+        assertEquals("0000000000042", captor.getValue().getTransactionId());
+        assertEquals(9000L, captor.getValue().getBalanceSnapshot());
+        assertEquals("0000000000042", transactionDto.getTransactionId());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("ledger 모드는 잔액을 ledger 로 차감하고 계좌/거래 테이블은 건드리지 않는다")
+    void useBalance_ledgerMode(){
+        //given (parameter)
+        AccountLedger accountLedger = mock(AccountLedger.class);
+        ReflectionTestUtils.setField(transactionService, "accountLedger", accountLedger);
+        AccountUser user = AccountUser.builder()
+                .name("You").build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(0L)
+                .accountNumber("1000000012").build();
+
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionIdGenerator.nextId())
+                .willReturn("transactionId");
+        given(accountLedger.debit(account, 1000L, "transactionId"))
+                .willReturn(LedgerEntry.builder()
+                        .sequence(3L)
+                        .type(LedgerEntryType.USE)
+                        .amount(1000L)
+                        .balanceAfter(9000L)
+                        .transactionId("transactionId")
+                        .transactedAt(LocalDateTime.now())
+                        .build());
+
+        //when (method)
+        // 테이블의 잔액(0)이 늦더라도 ledger 의 잔액으로 처리됨
+        TransactionDto transactionDto = transactionService.useBalance(12L,
+                "1000000012",
+                1000L);
+
+        //then (assertEquals)
+        verify(transactionRepository, never()).save(any());
+        verify(transactionCache, times(1)).putAfterCommit(any());
+        assertEquals(0L, account.getBalance());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+        assertEquals(TransactionType.USE, transactionDto.getTransactionType());
+        assertEquals("1000000012", transactionDto.getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("PESSIMISTIC 모드는 계좌를 row lock 으로 조회")
+    void useBalance_pessimisticMode(){
+        //given (parameter)
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode",
+                ConcurrencyMode.PESSIMISTIC);
+        AccountUser user = AccountUser.builder()
+                .name("You").build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumberForUpdate(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when (method)
+        TransactionDto transactionDto = transactionService.useBalance(1L,
+                "1000000012", 1000L);
+
+        //then (assertEquals)
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+    }
+
+
+    @Test
+    @DisplayName("ATOMIC 모드는 조건부 UPDATE 로 차감")
+    void useBalance_atomicMode(){
+        //given (parameter)
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode",
+                ConcurrencyMode.ATOMIC);
+        AccountUser user = AccountUser.builder()
+                .name("You").build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(9000L)
+                .accountNumber("1000000012").build();
+
+        given(accountRepository.debit(eq("1000000012"), eq(12L), eq(1000L),
+                eq(AccountStatus.IN_USE), any()))
+                .willReturn(1);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when (method)
+        TransactionDto transactionDto = transactionService.useBalance(12L,
+                "1000000012", 1000L);
+
+        //then (assertEquals)
+        verify(accountUserCache, times(0)).findById(anyLong());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+        assertEquals(TransactionResultType.S, transactionDto.getTransactionResultType());
+    }
+
+
+    @Test
+    @DisplayName("ATOMIC 모드 차감 실패 시 실패 사유를 찾아냄")
+    void useBalance_atomicModeExceedAmount(){
+        //given (parameter)
+        ReflectionTestUtils.setField(transactionService, "concurrencyMode",
+                ConcurrencyMode.ATOMIC);
+        AccountUser user = AccountUser.builder()
+                .name("You").build();
+        user.setId(12L);
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(100L)
+                .accountNumber("1000000012").build();
+
+        given(accountRepository.debit(anyString(), anyLong(), anyLong(), any(), any()))
+                .willReturn(0);
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        //when (method)
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", 1000L));
+
+        //then (assertEquals)
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+
     @Test
     @DisplayName("해당 유저 없음 - 잔액 사용 실패")
     void useBalance_UserNotFound(){
         //given (parameter)
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
 
 
@@ -132,7 +339,7 @@ class TransactionServiceTest {
                 .name("You").build();
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -162,7 +369,7 @@ class TransactionServiceTest {
                 .name("Park").build();
         user.setId(13L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -190,7 +397,7 @@ class TransactionServiceTest {
         user.setId(12L);
 
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -218,7 +425,7 @@ class TransactionServiceTest {
                 .name("You").build();
         user.setId(12L);
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -253,7 +460,7 @@ class TransactionServiceTest {
                 .accountNumber("1000000012").build();
 
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
@@ -273,51 +480,6 @@ class TransactionServiceTest {
     }
 
 
-    @Test
-    @DisplayName("실패 트랜잭션 저장 성공")
-    void saveFailedUseTransaction(){
-        //given (parameter)
-        AccountUser user = AccountUser.builder()
-                .name("You").build();
-        user.setId(12L);
-
-        Account account = Account.builder()
-                .accountUser(user)
-                .accountStatus(AccountStatus.IN_USE)
-                .balance(10000L)
-                .accountNumber("1000000012").build();
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-        given(transactionRepository.save(any()))
-                .willReturn(Transaction.builder()
-                        .account(account)
-                        .transactionType(TransactionType.USE)
-                        .transactionResultType(TransactionResultType.S)
-                        .transactionId("transactionId")
-                        .transactedAt(LocalDateTime.now())
-                        .amount(1000L)
-                        .balanceSnapshot(9000L)
-                        .build());
-
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
-
-
-
-        //when (method)
-         transactionService.saveFailedUseTransaction("1000000000", 2340L);
-
-
-        //then (assertEquals)
-        verify(transactionRepository,times(1)).save(captor.capture());
-        assertEquals(2340L, captor.getValue().getAmount());
-        assertEquals(10000L, captor.getValue().getBalanceSnapshot());
-        assertEquals(TransactionResultType.F, captor.getValue().getTransactionResultType());
-
-
-    }
-
-
     @Test
     void successCancelBalance(){
         //given (parameter)
@@ -341,8 +503,8 @@ class TransactionServiceTest {
             .balanceSnapshot(9000L)
             .build();
 
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionCache.get(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(transaction)));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
         given(transactionRepository.save(any()))
@@ -383,9 +545,10 @@ class TransactionServiceTest {
         //given (parameter)
 
 
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionCache.get(anyString()))
                 .willReturn(Optional.of(  //강의에선 지웠음
-                        Transaction.builder()
+                        TransactionDto.builder()
+                        .accountNumber("1000000012")
                         .transactionType(TransactionType.USE)
                         .transactionResultType(TransactionResultType.S)
                         .transactionId("transactionId")
@@ -415,7 +578,7 @@ class TransactionServiceTest {
         //given (parameter)
 
 
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionCache.get(anyString()))
                 .willReturn(Optional.empty());
 
         //when (method)
@@ -461,8 +624,8 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionCache.get(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(transaction)));
 
 
 
@@ -508,8 +671,8 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionCache.get(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(transaction)));
 
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
@@ -529,28 +692,16 @@ class TransactionServiceTest {
     @Test
      void successQueryTransaction(){
      //given (parameter)
-        AccountUser user = AccountUser.builder()
-                .name("You").build();
-
-        Account account = Account.builder()
-                .accountUser(user)
-                .accountStatus(AccountStatus.IN_USE)
-                .balance(10000L)
-                .accountNumber("1000000012").build();
-        account.setId(1L);
-
-        Transaction transaction = Transaction.builder()
-                .account(account)
-                .transactionType(TransactionType.USE)
-                .transactionResultType(TransactionResultType.S)
-                .transactionId("transactionId")
-                .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
-                .amount(CANCEL_AMOUNT)
-                .balanceSnapshot(9000L)
-                .build();
-
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionCache.get(anyString()))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .accountNumber("1000000012")
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .transactionId("transactionId")
+                        .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
+                        .amount(CANCEL_AMOUNT)
+                        .balanceSnapshot(9000L)
+                        .build()));
 
         //when (method)
         TransactionDto transactionDto = transactionService.queryTransaction("trxId");
@@ -569,7 +720,7 @@ class TransactionServiceTest {
         //given (parameter)
 
 
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionCache.get(anyString()))
                 .willReturn(Optional.empty());
 
         //when (method)
@@ -580,4 +731,81 @@ class TransactionServiceTest {
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
 
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void transactionHistoryFirstPage(){
+        //given (parameter)
+        LocalDateTime now = LocalDateTime.now();
+        given(accountRepository.findIdByAccountNumber("1000000012"))
+                .willReturn(Optional.of(1L));
+        given(transactionRepository.findHistory(eq(1L), isNull(), isNull(), any()))
+                .willReturn(Arrays.asList(
+                        historyItem(30L, now),
+                        historyItem(20L, now.minusMinutes(1)),
+                        historyItem(10L, now.minusMinutes(2))));
+
+        //when (method)
+        TransactionHistory history = transactionService.getTransactionHistory(
+                "1000000012", null, 2, null, null);
+
+        //then (assertEquals)
+        // size + 1 건을 읽어서 다음 페이지가 있는지 판단
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(transactionRepository).findHistory(eq(1L), isNull(), isNull(), captor.capture());
+        assertEquals(3, captor.getValue().getPageSize());
+        assertEquals(0, captor.getValue().getOffset());
+
+        assertEquals(2, history.getTransactions().size());
+        TransactionHistoryCursor next = TransactionHistoryCursor.decode(history.getNextCursor());
+        assertEquals(20L, next.getId());
+        assertEquals(now.minusMinutes(1), next.getTransactedAt());
+    }
+
+
+    @Test
+    void transactionHistoryNextPage(){
+        //given (parameter)
+        LocalDateTime cursorAt = LocalDateTime.now();
+        String cursor = new TransactionHistoryCursor(cursorAt, 20L).encode();
+        given(accountRepository.findIdByAccountNumber("1000000012"))
+                .willReturn(Optional.of(1L));
+        given(transactionRepository.findHistoryBefore(eq(1L), eq(cursorAt), eq(20L),
+                eq(TransactionType.USE), eq(TransactionResultType.S), any()))
+                .willReturn(Collections.singletonList(historyItem(10L, cursorAt.minusMinutes(1))));
+
+        //when (method)
+        TransactionHistory history = transactionService.getTransactionHistory(
+                "1000000012", cursor, 2, TransactionType.USE, TransactionResultType.S);
+
+        //then (assertEquals)
+        assertEquals(1, history.getTransactions().size());
+        assertNull(history.getNextCursor());
+    }
+
+
+    @Test
+    @DisplayName("잘못된 cursor - 거래 내역 조회 실패")
+    void transactionHistory_InvalidCursor(){
+        //when (method)
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory(
+                        "1000000012", "not-a-cursor", 20, null, null));
+
+        //then (assertEquals)
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+        verify(transactionRepository, times(0)).findHistoryBefore(
+                anyLong(), any(), anyLong(), any(), any(), any());
+    }
+
+    private static TransactionHistoryItem historyItem(Long id, LocalDateTime transactedAt) {
+        return TransactionHistoryItem.builder()
+                .id(id)
+                .transactionId("transactionId" + id)
+                .transactionType(TransactionType.USE)
+                .transactionResult(TransactionResultType.S)
+                .amount(1000L)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}